@@ -0,0 +1,73 @@
+package my.taxi.security;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import my.taxi.security.web.JwtProperties;
+import my.taxi.security.web.UserProfilePort;
+
+/**
+ * Shared wiring for benchmarks: the same objects Spring would build, without a context.
+ *
+ * Created by Avaz Absamatov
+ * Date: 10/18/2026
+ */
+public final class BenchFixtures {
+    public static final String SECRET_BASE64 = "404E635266556A586E3272357538782F413F4428472B4B6250645367566B5970";
+    public static final String HMAC_SECRET = "345676543HELLO";
+    public static final String USER_AGENT =
+            "Mozilla/5.0 (iPhone; CPU iPhone OS 17_5 like Mac OS X) AppleWebKit/605.1.15 Version/17.0 Mobile/15E148 Safari/604.1";
+    public static final long TOKEN_VERSION = 3L;
+
+    private BenchFixtures() {
+    }
+
+    public static JwtProperties jwtProperties() {
+        JwtProperties p = new JwtProperties();
+        p.setIssuer("my_taxi");
+        p.setAudience("my.taxi.app");
+        p.setSecretBase64(SECRET_BASE64);
+        p.setAccessExpMin(10);
+        p.setRefreshExpDays(14);
+        p.setMaxSession((short) 5);
+        return p;
+    }
+
+    public static JWTService jwtService() {
+        JwtProperties p = jwtProperties();
+        return new JWTService(p, new JwtKeyRing(p), new SimpleMeterRegistry());
+    }
+
+    public static FastAccessTokenVerifier fastVerifier() {
+        JwtProperties p = jwtProperties();
+        JwtKeyRing keyRing = new JwtKeyRing(p);
+        return new FastAccessTokenVerifier(new JWTService(p, keyRing, new SimpleMeterRegistry()), keyRing, p,
+                new SimpleMeterRegistry());
+    }
+
+    public static AccessTokenClaimsCache claimsCache(long maxSize) {
+        JwtProperties p = jwtProperties();
+        p.getClaimsCache().setMaxSize(maxSize);
+        return new AccessTokenClaimsCache(fastVerifier(), p, new SimpleMeterRegistry());
+    }
+
+    /**
+     * Port with a warm tokenVersion cache: no DB access, like the steady state in production.
+     * Versions never change, so bumps are ignored.
+     */
+    public static UserProfilePort warmUserProfilePort() {
+        return new UserProfilePort() {
+            @Override
+            public Long findUserIdByPhone(String phone) {
+                return 1L;
+            }
+
+            @Override
+            public long currentTokenVersion(Long userId) {
+                return TOKEN_VERSION;
+            }
+
+            @Override
+            public void bumpTokenVersion(Long userId) {
+            }
+        };
+    }
+}
@@ -0,0 +1,35 @@
+package my.taxi.security;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Created by Avaz Absamatov
+ * Date: 10/18/2026
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class DeviceFingerPrServiceBenchmark {
+    private DeviceFingerPrService service;
+    private MockHttpServletRequest request;
+
+    @Setup
+    public void setUp() {
+        service = new DeviceFingerPrService(BenchFixtures.HMAC_SECRET, DataSize.ofMegabytes(32), Duration.ofHours(6),
+                new SimpleMeterRegistry());
+        request = new MockHttpServletRequest();
+        request.addHeader("X-Device-Id", "3f1c9a0e-6b7d-4c1e-9a55-0d2b7c4e8f11");
+        request.addHeader("User-Agent", BenchFixtures.USER_AGENT);
+    }
+
+    @Benchmark
+    public String userScopedFingerprint() {
+        return service.userScopedFingerprint(request, 42L);
+    }
+}
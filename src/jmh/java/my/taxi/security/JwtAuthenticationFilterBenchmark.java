@@ -0,0 +1,60 @@
+package my.taxi.security;
+
+import jakarta.servlet.ServletException;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.io.IOException;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Full authenticated-request path through the JWT filter with a warm tokenVersion cache, with the
+ * token's claims already cached ({@code cached}) and verified from scratch on every call ({@code uncached}).
+ *
+ * Created by Avaz Absamatov
+ * Date: 10/18/2026
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class JwtAuthenticationFilterBenchmark {
+    private JwtAuthenticationFilter cachedFilter;
+    private JwtAuthenticationFilter uncachedFilter;
+    private String bearer;
+
+    @Setup
+    public void setUp() {
+        JWTService jwt = BenchFixtures.jwtService();
+        cachedFilter = new JwtAuthenticationFilter(BenchFixtures.claimsCache(10_000), BenchFixtures.warmUserProfilePort());
+        uncachedFilter = new JwtAuthenticationFilter(BenchFixtures.claimsCache(0), BenchFixtures.warmUserProfilePort());
+        bearer = "Bearer " + jwt.issueAccess(1L, "998900000001", Set.of("CLIENT"), BenchFixtures.TOKEN_VERSION);
+    }
+
+    @Benchmark
+    public MockHttpServletResponse cached() throws ServletException, IOException {
+        return doFilter(cachedFilter);
+    }
+
+    @Benchmark
+    public MockHttpServletResponse uncached() throws ServletException, IOException {
+        return doFilter(uncachedFilter);
+    }
+
+    private MockHttpServletResponse doFilter(JwtAuthenticationFilter filter) throws ServletException, IOException {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/v1/orders");
+        request.addHeader(HttpHeaders.AUTHORIZATION, bearer);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        try {
+            filter.doFilterInternal(request, response, new MockFilterChain());
+        } finally {
+            // every op starts unauthenticated, like a new request; cheaper than a per-invocation fixture
+            SecurityContextHolder.clearContext();
+        }
+        return response;
+    }
+}
@@ -0,0 +1,48 @@
+package my.taxi.security;
+
+import io.jsonwebtoken.Claims;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Created by Avaz Absamatov
+ * Date: 10/18/2026
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class JwtBenchmark {
+    private JWTService jwt;
+    private FastAccessTokenVerifier fastVerifier;
+    private String accessToken;
+    private final Set<String> roles = Set.of("CLIENT");
+
+    @Setup
+    public void setUp() {
+        jwt = BenchFixtures.jwtService();
+        fastVerifier = BenchFixtures.fastVerifier();
+        accessToken = jwt.issueAccess(1L, "998900000001", roles, BenchFixtures.TOKEN_VERSION);
+    }
+
+    @Benchmark
+    public String issueAccess() {
+        return jwt.issueAccess(1L, "998900000001", roles, BenchFixtures.TOKEN_VERSION);
+    }
+
+    @Benchmark
+    public String issueRefresh() {
+        return jwt.issueRefresh(1L, "family", "jti", BenchFixtures.TOKEN_VERSION);
+    }
+
+    @Benchmark
+    public Claims verify() {
+        return jwt.verify(accessToken);
+    }
+
+    @Benchmark
+    public AccessTokenClaims verifyFast() {
+        return fastVerifier.verify(accessToken);
+    }
+}
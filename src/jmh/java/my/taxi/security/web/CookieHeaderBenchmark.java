@@ -0,0 +1,32 @@
+package my.taxi.security.web;
+
+import jakarta.servlet.http.Cookie;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Created by Avaz Absamatov
+ * Date: 10/18/2026
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class CookieHeaderBenchmark {
+    private MockHttpServletRequest request;
+
+    @Setup
+    public void setUp() {
+        request = new MockHttpServletRequest();
+        request.setCookies(
+                new Cookie("_ga", "GA1.1.123456789.1700000000"),
+                new Cookie("lang", "uz-Latn"),
+                new Cookie("refresh_token", "eyJhbGciOiJIUzI1NiJ9.eyJ0eXAiOiJyZWZyZXNoIn0.sig"));
+    }
+
+    @Benchmark
+    public String read() {
+        return CookieHeader.read(request, "refresh_token");
+    }
+}
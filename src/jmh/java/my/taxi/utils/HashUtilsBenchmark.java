@@ -0,0 +1,49 @@
+package my.taxi.utils;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Created by Avaz Absamatov
+ * Date: 10/18/2026
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class HashUtilsBenchmark {
+    @Param({"64", "512"})
+    public int length;
+
+    private String data;
+    private byte[] bytes;
+    private HashUtils.HmacSha256 keyed;
+
+    @Setup
+    public void setUp() {
+        data = "x".repeat(length);
+        bytes = data.getBytes(StandardCharsets.UTF_8);
+        keyed = HashUtils.hmacSha256("345676543HELLO");
+    }
+
+    @Benchmark
+    public String sha256Hex() {
+        return HashUtils.sha256Hex(data);
+    }
+
+    @Benchmark
+    public String hmacSha256Hex() {
+        return HashUtils.hmacSha256Hex(data, "345676543HELLO");
+    }
+
+    @Benchmark
+    public String sha256HexBytes() {
+        return HashUtils.sha256Hex(bytes);
+    }
+
+    @Benchmark
+    public String hmacSha256HexKeyed() {
+        return keyed.hex(bytes);
+    }
+}
@@ -0,0 +1,71 @@
+package my.taxi.loadtest;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latency histogram (microseconds) and error count of one endpoint.
+ *
+ * Created by Avaz Absamatov
+ * Date: 10/18/2026
+ */
+class EndpointStats {
+    private static final long MAX_MICROS = Duration.ofMinutes(1).toNanos() / 1000;
+
+    final String endpoint;
+    private final Recorder recorder = new Recorder(MAX_MICROS, 3);
+    private final LongAdder errors = new LongAdder();
+    private Histogram snapshot;
+
+    EndpointStats(String endpoint) {
+        this.endpoint = endpoint;
+    }
+
+    void record(long nanos, boolean ok) {
+        recorder.recordValue(Math.min(MAX_MICROS, Math.max(1, nanos / 1000)));
+        if (!ok) errors.increment();
+    }
+
+    private Histogram histogram() {
+        if (snapshot == null) snapshot = recorder.getIntervalHistogram();
+        return snapshot;
+    }
+
+    static String table(List<EndpointStats> stats, Duration duration) {
+        StringBuilder sb = new StringBuilder(String.format(Locale.ROOT, "%n%-8s %10s %8s %10s %9s %9s %9s %9s%n",
+                "endpoint", "requests", "errors", "req/s", "p50 ms", "p95 ms", "p99 ms", "max ms"));
+        for (EndpointStats s : stats) {
+            Histogram h = s.histogram();
+            sb.append(String.format(Locale.ROOT, "%-8s %10d %8d %10.1f %9.2f %9.2f %9.2f %9.2f%n",
+                    s.endpoint, h.getTotalCount(), s.errors.sum(), h.getTotalCount() / (double) duration.toSeconds(),
+                    ms(h.getValueAtPercentile(50)), ms(h.getValueAtPercentile(95)),
+                    ms(h.getValueAtPercentile(99)), ms(h.getMaxValue())));
+        }
+        return sb.toString();
+    }
+
+    static String json(List<EndpointStats> stats, Duration duration) {
+        StringBuilder sb = new StringBuilder("{\"durationSeconds\":").append(duration.toSeconds()).append(",\"endpoints\":[");
+        for (int i = 0; i < stats.size(); i++) {
+            EndpointStats s = stats.get(i);
+            Histogram h = s.histogram();
+            if (i > 0) sb.append(',');
+            sb.append(String.format(Locale.ROOT,
+                    "{\"endpoint\":\"%s\",\"requests\":%d,\"errors\":%d,\"throughput\":%.1f,"
+                            + "\"p50Ms\":%.3f,\"p95Ms\":%.3f,\"p99Ms\":%.3f,\"maxMs\":%.3f}",
+                    s.endpoint, h.getTotalCount(), s.errors.sum(), h.getTotalCount() / (double) duration.toSeconds(),
+                    ms(h.getValueAtPercentile(50)), ms(h.getValueAtPercentile(95)),
+                    ms(h.getValueAtPercentile(99)), ms(h.getMaxValue())));
+        }
+        return sb.append("]}").toString();
+    }
+
+    private static double ms(long micros) {
+        return micros / 1000.0;
+    }
+}
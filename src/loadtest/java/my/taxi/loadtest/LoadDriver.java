@@ -0,0 +1,106 @@
+package my.taxi.loadtest;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Closed-loop HTTP driver: {@code concurrency} virtual threads, each sending the next request as
+ * soon as the previous one returned, for a random seeded device and an endpoint picked by weight.
+ *
+ * Created by Avaz Absamatov
+ * Date: 10/18/2026
+ */
+class LoadDriver {
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(30);
+    private static final String SUCCESS = "\"success\":true";
+
+    private final String baseUrl;
+    private final List<LoadSeeder.Client> clients;
+    private final String refreshCookie;
+    private final String[] picks;
+    private final HttpClient http = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .executor(Executors.newVirtualThreadPerTaskExecutor())
+            .build();
+
+    LoadDriver(String baseUrl, List<LoadSeeder.Client> clients, Map<String, Integer> mix, String refreshCookie) {
+        this.baseUrl = baseUrl;
+        this.clients = clients;
+        this.refreshCookie = refreshCookie;
+        List<String> p = new ArrayList<>();
+        mix.forEach((endpoint, weight) -> {
+            for (int i = 0; i < weight; i++) p.add(endpoint);
+        });
+        this.picks = p.toArray(String[]::new);
+    }
+
+    List<EndpointStats> run(int concurrency, Duration duration) throws InterruptedException {
+        Map<String, EndpointStats> stats = new LinkedHashMap<>();
+        for (String endpoint : new String[]{"login", "refresh", "authed"}) stats.put(endpoint, new EndpointStats(endpoint));
+
+        final long deadline = System.nanoTime() + duration.toNanos();
+        try (ExecutorService workers = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < concurrency; i++) {
+                workers.submit(() -> {
+                    ThreadLocalRandom rnd = ThreadLocalRandom.current();
+                    while (System.nanoTime() < deadline) {
+                        String endpoint = picks[rnd.nextInt(picks.length)];
+                        LoadSeeder.Client client = clients.get(rnd.nextInt(clients.size()));
+                        EndpointStats s = stats.get(endpoint);
+                        long start = System.nanoTime();
+                        try {
+                            HttpResponse<String> res = http.send(request(endpoint, client), HttpResponse.BodyHandlers.ofString());
+                            s.record(System.nanoTime() - start, succeeded(endpoint, res));
+                        } catch (Exception e) {
+                            s.record(System.nanoTime() - start, false);
+                        }
+                    }
+                });
+            }
+        }
+        return new ArrayList<>(stats.values());
+    }
+
+    /**
+     * The auth endpoints answer 200 with {@code "success":false} on a rejected login or refresh, so
+     * only the actuator call can be judged by its status (401 from the JWT filter).
+     */
+    private static boolean succeeded(String endpoint, HttpResponse<String> res) {
+        if (res.statusCode() >= 400) return false;
+        return endpoint.equals("authed") || res.body().contains(SUCCESS);
+    }
+
+    private HttpRequest request(String endpoint, LoadSeeder.Client c) {
+        HttpRequest.Builder b = HttpRequest.newBuilder()
+                .timeout(REQUEST_TIMEOUT)
+                .header("User-Agent", LoadSeeder.USER_AGENT)
+                .header("X-Device-Id", c.deviceId());
+        return switch (endpoint) {
+            case "login" -> b.uri(URI.create(baseUrl + "/api/v1/auth/login"))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(
+                            "{\"params\":{\"phone\":\"" + c.phone() + "\",\"password\":\"x\"}}"))
+                    .build();
+            case "refresh" -> b.uri(URI.create(baseUrl + "/api/v1/auth/refresh-token"))
+                    .header("Cookie", refreshCookie + "=" + c.refreshToken())
+                    .POST(HttpRequest.BodyPublishers.noBody())
+                    .build();
+            // goes through JwtAuthenticationFilter; the endpoint itself does no I/O
+            case "authed" -> b.uri(URI.create(baseUrl + "/actuator/health/liveness"))
+                    .header("Authorization", "Bearer " + c.accessToken())
+                    .GET()
+                    .build();
+            default -> throw new IllegalArgumentException("Unknown endpoint " + endpoint);
+        };
+    }
+}
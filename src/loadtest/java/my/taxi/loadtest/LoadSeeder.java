@@ -0,0 +1,96 @@
+package my.taxi.loadtest;
+
+import my.taxi.entities.auth.RefreshToken;
+import my.taxi.entities.auth.enums.TokenStatus;
+import my.taxi.entities.user.User;
+import my.taxi.entities.user.enums.Role;
+import my.taxi.repository.RefreshTokenRepository;
+import my.taxi.repository.UserRepository;
+import my.taxi.security.DeviceFingerPrService;
+import my.taxi.security.JWTService;
+import my.taxi.security.web.JwtProperties;
+import my.taxi.utils.HashUtils;
+import org.springframework.context.ApplicationContext;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Creates users with one device session each, through the application's own repositories and
+ * token services, so seeded rows look exactly like ones produced by a real login.
+ *
+ * Created by Avaz Absamatov
+ * Date: 10/18/2026
+ */
+class LoadSeeder {
+    static final String USER_AGENT = "my-taxi-loadtest/1.0";
+    private static final int BATCH = 500;
+
+    private final UserRepository users;
+    private final RefreshTokenRepository refreshTokens;
+    private final DeviceFingerPrService fingerprints;
+    private final JWTService jwt;
+    private final JwtProperties props;
+
+    LoadSeeder(ApplicationContext ctx) {
+        this.users = ctx.getBean(UserRepository.class);
+        this.refreshTokens = ctx.getBean(RefreshTokenRepository.class);
+        this.fingerprints = ctx.getBean(DeviceFingerPrService.class);
+        this.jwt = ctx.getBean(JWTService.class);
+        this.props = ctx.getBean(JwtProperties.class);
+    }
+
+    List<Client> seed(int count) {
+        List<Client> clients = new ArrayList<>(count);
+        for (int from = 0; from < count; from += BATCH) {
+            List<User> batch = new ArrayList<>();
+            for (int i = from; i < Math.min(count, from + BATCH); i++) {
+                User u = new User();
+                u.setPhone(String.format("99890%07d", i));
+                u.setRoles(EnumSet.of(Role.CLIENT));
+                u.setActive(true);
+                batch.add(u);
+            }
+            List<RefreshToken> rows = new ArrayList<>();
+            for (User u : users.saveAll(batch)) {
+                String deviceId = "lt-device-" + u.getId();
+                MockHttpServletRequest req = new MockHttpServletRequest();
+                req.addHeader("X-Device-Id", deviceId);
+                req.addHeader("User-Agent", USER_AGENT);
+
+                String jti = UUID.randomUUID().toString();
+                String familyId = UUID.randomUUID().toString();
+                String refresh = jwt.issueRefresh(u.getId(), familyId, jti, u.getTokenVersion());
+                String access = jwt.issueAccess(u.getId(), u.getPhone(), Set.of(Role.CLIENT.name()), u.getTokenVersion());
+                Instant now = Instant.now();
+                rows.add(RefreshToken.builder()
+                        .jti(jti)
+                        .userId(u.getId())
+                        .familyId(familyId)
+                        .tokenHash(HashUtils.sha256Hex(refresh))
+                        .deviceFp(fingerprints.userScopedFingerprint(req, u.getId()))
+                        .status(TokenStatus.ACTIVE)
+                        .expiresAt(now.plus(Duration.ofDays(props.getRefreshExpDays())))
+                        .userAgent(USER_AGENT)
+                        .createdAt(now)
+                        .lastUsedAt(now)
+                        .build());
+                clients.add(new Client(u.getPhone(), deviceId, refresh, access));
+            }
+            refreshTokens.saveAll(rows);
+        }
+        return clients;
+    }
+
+    /**
+     * One simulated device: always sends the same device id / User-Agent it was seeded with.
+     */
+    record Client(String phone, String deviceId, String refreshToken, String accessToken) {
+    }
+}
@@ -0,0 +1,109 @@
+package my.taxi.loadtest;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import my.taxi.MyTaxiApplication;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Offline load test: embedded Postgres + the real application on a random port, seeded through the
+ * repositories, driven over HTTP by virtual-thread clients.
+ *
+ * <p>Run: {@code ./mvnw -Ploadtest -DskipTests verify -Dloadtest.args="users=2000 concurrency=400"}.
+ * Options (all {@code key=value}):</p>
+ * <ul>
+ *   <li>{@code users} seeded users, each with one device and refresh token (1000)</li>
+ *   <li>{@code concurrency} virtual-thread clients (200)</li>
+ *   <li>{@code warmup}, {@code duration} (10s, 30s)</li>
+ *   <li>{@code mix} weights per endpoint ({@code login:20,refresh:30,authed:50})</li>
+ *   <li>{@code profiles} Spring profiles of the app under test ({@code dev}; e.g. {@code dev,vthreads})</li>
+ * </ul>
+ * Results are printed and written to {@code target/loadtest-result.json}.
+ *
+ * Created by Avaz Absamatov
+ * Date: 10/18/2026
+ */
+public class LoadTest {
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> opts = parse(args);
+        int users = Integer.parseInt(opts.getOrDefault("users", "1000"));
+        int concurrency = Integer.parseInt(opts.getOrDefault("concurrency", "200"));
+        Duration warmup = Duration.parse("PT" + opts.getOrDefault("warmup", "10s"));
+        Duration duration = Duration.parse("PT" + opts.getOrDefault("duration", "30s"));
+        Map<String, Integer> mix = parseMix(opts.getOrDefault("mix", "login:20,refresh:30,authed:50"));
+        String profiles = opts.getOrDefault("profiles", "dev");
+
+        try (EmbeddedPostgres pg = EmbeddedPostgres.builder().start()) {
+            int port = freePort();
+            ConfigurableApplicationContext ctx = SpringApplication.run(MyTaxiApplication.class,
+                    "--spring.datasource.url=" + pg.getJdbcUrl("postgres", "postgres"),
+                    "--spring.datasource.username=postgres",
+                    "--spring.datasource.password=postgres",
+                    "--spring.profiles.active=" + profiles,
+                    "--server.port=" + port,
+                    // measure the auth tier, not the limiter or background jobs
+                    "--app.rate-limit.enabled=false",
+                    "--app.retention.enabled=false",
+                    "--security.jwt.access-exp-min=600",
+                    // /actuator/health/liveness: the no-I/O target of the "authed" mix, on the app port
+                    // so it goes through the same filter chain
+                    "--management.server.port=" + port,
+                    "--management.endpoint.health.probes.enabled=true",
+                    "--logging.level.root=WARN");
+            try {
+                List<LoadSeeder.Client> clients = new LoadSeeder(ctx).seed(users);
+                String baseUrl = "http://localhost:" + ctx.getEnvironment().getProperty("local.server.port");
+                System.out.printf("Seeded %d users; %d clients, warmup %s, duration %s, mix %s, profiles %s%n",
+                        users, concurrency, warmup, duration, mix, profiles);
+
+                LoadDriver driver = new LoadDriver(baseUrl, clients, mix,
+                        ctx.getEnvironment().getProperty("security.jwt.cookie.refresh-name", "refresh_token"));
+                driver.run(concurrency, warmup);
+                List<EndpointStats> stats = driver.run(concurrency, duration);
+
+                String report = EndpointStats.table(stats, duration);
+                System.out.println(report);
+                Path out = Path.of("target", "loadtest-result.json");
+                Files.createDirectories(out.getParent());
+                Files.writeString(out, EndpointStats.json(stats, duration));
+                System.out.println("Written " + out.toAbsolutePath());
+            } finally {
+                ctx.close();
+            }
+        }
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    private static Map<String, String> parse(String[] args) {
+        Map<String, String> opts = new HashMap<>();
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+            if (eq > 0) opts.put(arg.substring(0, eq).trim(), arg.substring(eq + 1).trim());
+        }
+        return opts;
+    }
+
+    private static Map<String, Integer> parseMix(String mix) {
+        Map<String, Integer> weights = new HashMap<>();
+        for (String part : mix.split(",")) {
+            String[] kv = part.split(":");
+            weights.put(kv[0].trim(), Integer.parseInt(kv[1].trim()));
+        }
+        return weights;
+    }
+}
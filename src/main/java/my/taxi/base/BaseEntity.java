@@ -25,8 +25,12 @@ public class BaseEntity implements Serializable {
     @Serial
     private static final long serialVersionUID = 1L;
 
+    /**
+     * One sequence per entity ({@code <entity>_seq}, increment 50) handed out through the pooled-lo
+     * optimizer, so ids are known before the INSERT and Hibernate can batch writes.
+     */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE)
     private Long id;
 
     @CreatedBy
@@ -1,18 +1,48 @@
 package my.taxi.configuration;
 
+import my.taxi.security.password.PasswordProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableAsync;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.security.crypto.argon2.Argon2PasswordEncoder;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 
+import java.util.Map;
+
 /**
  * Created by Avaz Absamatov
  * Date: 9/13/2025
  */
 @Configuration
+@EnableAsync
+@EnableScheduling
 public class AppConfig {
+    private static final String BCRYPT = "bcrypt";
+    private static final String ARGON2 = "argon2";
+
+    /**
+     * Hashes are stored as {@code {bcrypt}...} / {@code {argon2}...}; new ones use
+     * {@code app.password.algorithm}. Hashes without a prefix were written by the plain
+     * {@link BCryptPasswordEncoder} used before and are still checked as BCrypt.
+     */
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder passwordEncoder(PasswordProperties props) {
+        PasswordProperties.Argon2Props argon2 = props.getArgon2();
+        BCryptPasswordEncoder bcrypt = new BCryptPasswordEncoder(props.getBcryptStrength());
+        Map<String, PasswordEncoder> encoders = Map.of(
+                BCRYPT, bcrypt,
+                ARGON2, new Argon2PasswordEncoder(16, 32,
+                        argon2.getParallelism(), argon2.getMemoryKib(), argon2.getIterations()));
+
+        DelegatingPasswordEncoder encoder = new DelegatingPasswordEncoder(
+                switch (props.getAlgorithm()) {
+                    case BCRYPT -> BCRYPT;
+                    case ARGON2ID -> ARGON2;
+                }, encoders);
+        encoder.setDefaultPasswordEncoderForMatches(bcrypt);
+        return encoder;
     }
 }
@@ -10,9 +10,11 @@ import my.taxi.repository.StaffAccountRepository;
 import my.taxi.repository.StaffProfileRepository;
 import my.taxi.repository.UserRepository;
 import org.springframework.boot.CommandLineRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Component;
 
-import java.util.Set;
+import java.util.EnumSet;
 
 /**
  * Created by Avaz Absamatov
@@ -20,18 +22,19 @@ import java.util.Set;
  */
 @Component
 @RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "app.initial-setup", name = "enabled", havingValue = "true", matchIfMissing = true)
 public class InitialSetUp implements CommandLineRunner {
     private final UserRepository userRepository;
     private final StaffProfileRepository staffProfileRepository;
     private final StaffAccountRepository staffAccountRepository;
-
+    private final PasswordEncoder passwordEncoder;
 
     @Override
     public void run(String... args) {
         if (!userRepository.existsByPhone("998999701899")) {
             User user = new User();
             user.setPhone("998999701899");
-            user.setRoles(Set.of(Role.ADMIN));
+            user.setRoles(EnumSet.of(Role.ADMIN));
             user.setLanguage(Language.EN);
             user.setActive(true);
             userRepository.save(user);
@@ -44,9 +47,19 @@ public class InitialSetUp implements CommandLineRunner {
 
             StaffAccount staffAccount = new StaffAccount();
             staffAccount.setUser(user);
-            staffAccount.setPassword("123456");
+            staffAccount.setPassword(passwordEncoder.encode("123456"));
 
             staffAccountRepository.save(staffAccount);
+        } else {
+            // earlier versions stored this account's password in plain text
+            staffAccountRepository.findByPhone("998999701899")
+                    .filter(account -> !isEncoded(account.getPassword()))
+                    .ifPresent(account -> staffAccountRepository.rehash(
+                            account.getId(), account.getPassword(), passwordEncoder.encode(account.getPassword())));
         }
     }
+
+    private static boolean isEncoded(String password) {
+        return password.startsWith("{") || password.startsWith("$2");
+    }
 }
@@ -0,0 +1,86 @@
+package my.taxi.configuration;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import my.taxi.configuration.datasource.ReadWriteRoutingDataSource;
+import my.taxi.configuration.datasource.ReadYourWritesFilter;
+import my.taxi.configuration.datasource.ReplicaHealth;
+import my.taxi.configuration.datasource.ReplicaProperties;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.Ordered;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+
+/**
+ * Primary + read replica ({@code app.datasource.replica.enabled=true}).
+ *
+ * <p>Two Hikari pools, {@code primary} from {@code spring.datasource} and {@code replica} from
+ * {@code app.datasource.replica}; both show up in the {@code hikaricp.*} metrics under their pool
+ * name. The application {@link DataSource} routes {@code @Transactional(readOnly = true)} work to
+ * the replica, see {@link ReadWriteRoutingDataSource}.</p>
+ *
+ * Created by Avaz Absamatov
+ * Date: 10/18/2026
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "app.datasource.replica", name = "enabled", havingValue = "true")
+public class ReadReplicaConfig {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        HikariDataSource ds = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        ds.setPoolName("primary");
+        return ds;
+    }
+
+    @Bean
+    @ConfigurationProperties("app.datasource.replica.hikari")
+    public HikariDataSource replicaDataSource(ReplicaProperties properties) {
+        HikariDataSource ds = DataSourceBuilder.create()
+                .type(HikariDataSource.class)
+                .url(properties.getUrl())
+                .username(properties.getUsername())
+                .password(properties.getPassword())
+                .build();
+        ds.setPoolName("replica");
+        ds.setReadOnly(true);
+        // a replica that is down at boot must not stop the application; ReplicaHealth keeps probing
+        ds.setInitializationFailTimeout(-1);
+        return ds;
+    }
+
+    @Bean
+    @Lazy(false) // @Scheduled must be registered even with spring.main.lazy-initialization
+    public ReplicaHealth replicaHealth(@Qualifier("replicaDataSource") DataSource replica,
+                                       ReplicaProperties properties, MeterRegistry registry) {
+        return new ReplicaHealth(replica, properties.getMaxLag(), registry);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(@Qualifier("primaryDataSource") DataSource primary,
+                                 @Qualifier("replicaDataSource") DataSource replica,
+                                 ReplicaHealth health, MeterRegistry registry) {
+        return new LazyConnectionDataSourceProxy(new ReadWriteRoutingDataSource(primary, replica, health, registry));
+    }
+
+    @Bean
+    public FilterRegistrationBean<ReadYourWritesFilter> readYourWritesFilter(ReplicaProperties properties) {
+        FilterRegistrationBean<ReadYourWritesFilter> registration =
+                new FilterRegistrationBean<>(new ReadYourWritesFilter(properties.getStickyCookie()));
+        // ahead of the security chain, which already reads the token version
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE);
+        return registration;
+    }
+}
@@ -0,0 +1,62 @@
+package my.taxi.configuration;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import my.taxi.configuration.datasource.GatedDataSource;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * Extras for {@code spring.threads.virtual.enabled=true} (see application-vthreads.yml).
+ *
+ * <p>Spring Boot itself moves Tomcat, {@code @Async} and {@code @Scheduled} onto virtual threads;
+ * this adds the DB access gate in front of Hikari and optional pinning diagnostics.</p>
+ *
+ * Created by Avaz Absamatov
+ * Date: 10/18/2026
+ */
+@Configuration
+@ConditionalOnProperty(name = "spring.threads.virtual.enabled", havingValue = "true")
+public class VirtualThreadsConfig {
+
+    @Bean
+    @ConditionalOnProperty(name = "app.db-gate.enabled", havingValue = "true", matchIfMissing = true)
+    public static BeanPostProcessor dbAccessGate(Environment env) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (!(bean instanceof HikariDataSource hikari)) return bean;
+                int max = env.getProperty("app.db-gate.max-concurrent", Integer.class, hikari.getMaximumPoolSize());
+                Duration timeout = env.getProperty("app.db-gate.acquire-timeout", Duration.class, Duration.ofSeconds(5));
+                return new GatedDataSource((DataSource) bean, max, timeout);
+            }
+        };
+    }
+
+    /**
+     * One gate per pool (primary and replica when {@link ReadReplicaConfig} is on), tagged by bean name.
+     */
+    @Bean
+    public MeterBinder dbAccessGateMetrics(Map<String, DataSource> dataSources) {
+        return registry -> dataSources.forEach((name, dataSource) -> {
+            if (!(dataSource instanceof GatedDataSource gate)) return;
+            Gauge.builder("db.gate.available", gate, GatedDataSource::availablePermits).tag("pool", name).register(registry);
+            Gauge.builder("db.gate.queued", gate, GatedDataSource::queueLength).tag("pool", name).register(registry);
+        });
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "app.virtual-threads.pinning-monitor.enabled", havingValue = "true")
+    public VirtualThreadPinningMonitor virtualThreadPinningMonitor(Environment env) {
+        return new VirtualThreadPinningMonitor(
+                env.getProperty("app.virtual-threads.pinning-monitor.threshold", Duration.class, Duration.ofMillis(20)));
+    }
+}
@@ -0,0 +1,43 @@
+package my.taxi.configuration.datasource;
+
+import java.util.function.Supplier;
+
+/**
+ * Per-thread override that sends read-only transactions to the primary, for code that must see
+ * its own recent writes. {@link ReadYourWritesFilter} sets it for a whole request.
+ *
+ * Created by Avaz Absamatov
+ * Date: 10/18/2026
+ */
+public final class ReadRouting {
+    private static final ThreadLocal<Boolean> PRIMARY = new ThreadLocal<>();
+
+    private ReadRouting() {
+    }
+
+    public static boolean isPrimaryForced() {
+        return PRIMARY.get() != null;
+    }
+
+    public static void forcePrimary() {
+        PRIMARY.set(Boolean.TRUE);
+    }
+
+    public static void clear() {
+        PRIMARY.remove();
+    }
+
+    /**
+     * Runs {@code work} with reads on the primary; the routing decision is taken when the
+     * transaction's first statement runs, so start the transaction inside {@code work}.
+     */
+    public static <T> T primary(Supplier<T> work) {
+        if (isPrimaryForced()) return work.get();
+        forcePrimary();
+        try {
+            return work.get();
+        } finally {
+            clear();
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package my.taxi.configuration.datasource;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Map;
+
+/**
+ * Sends read-only transactions to the replica and everything else to the primary.
+ *
+ * <p>Must sit behind a {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy}:
+ * the transaction manager asks for a connection before the read-only flag is bound to the thread,
+ * the lazy proxy postpones that until the first statement.</p>
+ *
+ * <p>The replica is skipped while {@link ReplicaHealth} reports it down, when
+ * {@link ReadRouting} forces the primary, and for one call when it cannot hand out a connection.</p>
+ *
+ * Created by Avaz Absamatov
+ * Date: 10/18/2026
+ */
+public class ReadWriteRoutingDataSource extends AbstractRoutingDataSource {
+    static final String PRIMARY = "primary";
+    static final String REPLICA = "replica";
+
+    private final DataSource primary;
+    private final ReplicaHealth health;
+    private final Counter toPrimary;
+    private final Counter toReplica;
+    private final Counter fallbacks;
+
+    public ReadWriteRoutingDataSource(DataSource primary, DataSource replica, ReplicaHealth health,
+                                      MeterRegistry registry) {
+        this.primary = primary;
+        this.health = health;
+        this.toPrimary = Counter.builder("db.routing").tag("target", PRIMARY).register(registry);
+        this.toReplica = Counter.builder("db.routing").tag("target", REPLICA).register(registry);
+        this.fallbacks = Counter.builder("db.routing.fallback").register(registry);
+        setTargetDataSources(Map.of(PRIMARY, primary, REPLICA, replica));
+        setDefaultTargetDataSource(primary);
+        setLenientFallback(false);
+        afterPropertiesSet();
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        boolean replica = TransactionSynchronizationManager.isCurrentTransactionReadOnly()
+                && !ReadRouting.isPrimaryForced()
+                && health.isUp();
+        (replica ? toReplica : toPrimary).increment();
+        return replica ? REPLICA : PRIMARY;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        DataSource target = determineTargetDataSource();
+        if (target == primary) return target.getConnection();
+        try {
+            return target.getConnection();
+        } catch (SQLException e) {
+            fallback(e);
+            return primary.getConnection();
+        }
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        DataSource target = determineTargetDataSource();
+        if (target == primary) return target.getConnection(username, password);
+        try {
+            return target.getConnection(username, password);
+        } catch (SQLException e) {
+            fallback(e);
+            return primary.getConnection(username, password);
+        }
+    }
+
+    private void fallback(SQLException e) {
+        fallbacks.increment();
+        health.markDown(e.getMessage());
+    }
+}
@@ -0,0 +1,43 @@
+package my.taxi.configuration.datasource;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.NonNull;
+import my.taxi.security.web.CookieHeader;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Requests carrying the sticky cookie (set on login, see
+ * {@link my.taxi.security.web.HttpCookieUtil#markReadYourWrites}) read from the primary, so a
+ * refresh right after login does not miss the row on a lagging replica.
+ *
+ * Created by Avaz Absamatov
+ * Date: 10/18/2026
+ */
+public class ReadYourWritesFilter extends OncePerRequestFilter {
+    private final String cookieName;
+
+    public ReadYourWritesFilter(String cookieName) {
+        this.cookieName = cookieName;
+    }
+
+    @Override
+    protected void doFilterInternal(@NonNull HttpServletRequest request,
+                                    @NonNull HttpServletResponse response,
+                                    @NonNull FilterChain chain) throws ServletException, IOException {
+        if (CookieHeader.read(request, cookieName) == null) {
+            chain.doFilter(request, response);
+            return;
+        }
+        ReadRouting.forcePrimary();
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            ReadRouting.clear();
+        }
+    }
+}
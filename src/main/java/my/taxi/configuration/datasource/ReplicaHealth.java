@@ -0,0 +1,75 @@
+package my.taxi.configuration.datasource;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.time.Duration;
+
+/**
+ * Periodic replica probe: reachable and replaying within {@code maxLag}, otherwise reads stay on
+ * the primary. A failed connection attempt on the request path marks it down immediately.
+ *
+ * Created by Avaz Absamatov
+ * Date: 10/18/2026
+ */
+@Slf4j
+public class ReplicaHealth {
+    /**
+     * Seconds of replay lag; 0 when nothing is waiting to be replayed (an idle primary would
+     * otherwise make {@code pg_last_xact_replay_timestamp()} look ever older) or when the
+     * server is not a standby at all.
+     */
+    private static final String LAG_SQL = """
+            SELECT CASE WHEN NOT pg_is_in_recovery()
+                          OR pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0
+                        ELSE coalesce(extract(epoch FROM now() - pg_last_xact_replay_timestamp()), 0)
+                   END
+            """;
+
+    private final DataSource replica;
+    private final Duration maxLag;
+    private volatile boolean up = true;
+    private volatile double lagSeconds;
+
+    public ReplicaHealth(DataSource replica, Duration maxLag, MeterRegistry registry) {
+        this.replica = replica;
+        this.maxLag = maxLag;
+        Gauge.builder("db.replica.up", this, h -> h.up ? 1 : 0).register(registry);
+        Gauge.builder("db.replica.lag", this, h -> h.lagSeconds).baseUnit("seconds").register(registry);
+    }
+
+    public boolean isUp() {
+        return up;
+    }
+
+    void markDown(String reason) {
+        if (up) log.warn("Replica marked down, reads go to the primary: {}", reason);
+        up = false;
+    }
+
+    @Scheduled(initialDelay = 0, fixedDelayString = "${app.datasource.replica.health-check-interval:5s}")
+    public void check() {
+        try (Connection c = replica.getConnection();
+             Statement st = c.createStatement()) {
+            st.setQueryTimeout(Math.max(1, (int) maxLag.toSeconds()));
+            try (ResultSet rs = st.executeQuery(LAG_SQL)) {
+                rs.next();
+                lagSeconds = rs.getDouble(1);
+            }
+            if (lagSeconds * 1000 > maxLag.toMillis()) {
+                markDown("replay lag " + lagSeconds + "s");
+                return;
+            }
+            if (!up) log.info("Replica is back, routing read-only transactions to it");
+            up = true;
+        } catch (Exception e) {
+            markDown(e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package my.taxi.configuration.datasource;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * Read replica for {@code @Transactional(readOnly = true)} work; pool settings go under
+ * {@code app.datasource.replica.hikari}.
+ *
+ * Created by Avaz Absamatov
+ * Date: 10/18/2026
+ */
+@Getter
+@Setter
+@Configuration
+@ConfigurationProperties(prefix = "app.datasource.replica")
+public class ReplicaProperties {
+    private boolean enabled = false;
+    private String url;
+    private String username;
+    private String password;
+    private Duration healthCheckInterval = Duration.ofSeconds(5);
+    /**
+     * Replay lag above this sends reads back to the primary until the replica catches up.
+     */
+    private Duration maxLag = Duration.ofSeconds(2);
+    /**
+     * After a login the client reads from the primary for this long (read-your-writes).
+     */
+    private Duration stickAfterWrite = Duration.ofSeconds(5);
+    private String stickyCookie = "rw_primary";
+}
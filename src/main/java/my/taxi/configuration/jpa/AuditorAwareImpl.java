@@ -1,6 +1,7 @@
 package my.taxi.configuration.jpa;
 
 import my.taxi.entities.user.User;
+import my.taxi.security.JwtAuthentication;
 import org.springframework.data.domain.AuditorAware;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
@@ -17,6 +18,9 @@ public class AuditorAwareImpl implements AuditorAware<Long> {
         Authentication auth = SecurityContextHolder.getContext().getAuthentication();
         if (auth == null || !auth.isAuthenticated()) return Optional.empty();
 
+        if (auth instanceof JwtAuthentication jwt) {
+            return Optional.of(jwt.getUserId());
+        }
         Object principal = auth.getPrincipal();
         if (principal instanceof User user) {
             return Optional.of(user.getId());
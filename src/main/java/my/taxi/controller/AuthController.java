@@ -8,6 +8,11 @@ import lombok.extern.slf4j.Slf4j;
 import my.taxi.base.Request;
 import my.taxi.base.Response;
 import my.taxi.payload.request.LoginRequest;
+import my.taxi.payload.request.OtpSendRequest;
+import my.taxi.payload.request.OtpVerifyRequest;
+import my.taxi.payload.response.OtpSendResponse;
+import my.taxi.service.OtpService;
+import my.taxi.service.StaffAuthService;
 import my.taxi.service.impl.AuthServiceImpl;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.PostMapping;
@@ -27,6 +32,8 @@ import static my.taxi.utils.ApiConstants.*;
 @RequiredArgsConstructor
 public class AuthController {
     private final AuthServiceImpl service;
+    private final OtpService otpService;
+    private final StaffAuthService staffAuthService;
 
 
     @PostMapping(LOGIN)
@@ -39,10 +46,43 @@ public class AuthController {
         return ResponseEntity.ok(result);
     }
 
+    @PostMapping(STAFF_LOGIN)
+    public ResponseEntity<Response<String>> staffLogin(
+            @Valid @RequestBody Request<LoginRequest> dto,
+            HttpServletRequest request,
+            HttpServletResponse response) {
+        Response<String> result = staffAuthService.login(dto, request, response);
+        return ResponseEntity.status(result.getStatus()).body(result);
+    }
+
     @PostMapping(REFRESH_TOKEN)
     public ResponseEntity<Response<String>> refreshToken(
             HttpServletRequest req,
             HttpServletResponse res) {
         return ResponseEntity.ok(service.handleRefreshToken(req, res));
     }
+
+    @PostMapping(LOGOUT_ALL)
+    public ResponseEntity<Response<String>> logoutAll(HttpServletResponse response) {
+        Response<String> result = service.logoutAll(response);
+        return ResponseEntity.status(result.getStatus()).body(result);
+    }
+
+    @PostMapping(OTP_SEND)
+    public ResponseEntity<Response<OtpSendResponse>> sendOtp(
+            @Valid @RequestBody Request<OtpSendRequest> dto,
+            HttpServletRequest request,
+            HttpServletResponse response) {
+        Response<OtpSendResponse> result = otpService.send(dto, request, response);
+        return ResponseEntity.status(result.getStatus()).body(result);
+    }
+
+    @PostMapping(OTP_VERIFY)
+    public ResponseEntity<Response<String>> verifyOtp(
+            @Valid @RequestBody Request<OtpVerifyRequest> dto,
+            HttpServletRequest request,
+            HttpServletResponse response) {
+        Response<String> result = otpService.verify(dto, request, response);
+        return ResponseEntity.status(result.getStatus()).body(result);
+    }
 }
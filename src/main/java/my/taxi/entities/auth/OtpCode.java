@@ -25,7 +25,7 @@ import java.time.Instant;
 @Setter
 public class OtpCode {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE)
     private Long id;
 
     @Column(name = "phone", length = 12)
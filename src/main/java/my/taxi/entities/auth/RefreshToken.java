@@ -3,6 +3,7 @@ package my.taxi.entities.auth;
 import jakarta.persistence.*;
 import lombok.*;
 import my.taxi.entities.auth.enums.TokenStatus;
+import org.springframework.data.domain.Persistable;
 
 import java.time.Instant;
 
@@ -14,14 +15,15 @@ import java.time.Instant;
 @Table(name = "REFRESH_TOKENS", indexes = {
         @Index(name = "idx_rt_user", columnList = "userId"),
         @Index(name = "idx_rt_jti", columnList = "jti", unique = true),
-        @Index(name = "idx_rt_family", columnList = "familyId")
+        @Index(name = "idx_rt_family", columnList = "familyId"),
+        @Index(name = "idx_rt_expires", columnList = "expiresAt, jti")
 })
 @NoArgsConstructor
 @AllArgsConstructor
 @Getter
 @Setter
 @Builder
-public class RefreshToken {
+public class RefreshToken implements Persistable<String> {
     /**
      * jti - "JWT ID": a unique identifier for one refresh token
      * Used to track this exact token in the database, detect reuse, and mark it USED/REVOKED.
@@ -69,6 +71,30 @@ public class RefreshToken {
     @Column(name = "CREATED_AT", nullable = false)
     private Instant createdAt = Instant.now();
 
+    /**
+     * The id (jti) is assigned by us, so without this flag {@code save()} would merge and
+     * SELECT the row first. New instances are INSERTed directly.
+     */
+    @Transient
+    @Builder.Default
+    private boolean fresh = true;
+
+    @Override
+    public String getId() {
+        return jti;
+    }
+
+    @Override
+    public boolean isNew() {
+        return fresh;
+    }
+
+    @PostLoad
+    @PostPersist
+    void markPersisted() {
+        this.fresh = false;
+    }
+
     public boolean isExpired() {
         return Instant.now().isAfter(expiresAt);
     }
@@ -15,7 +15,9 @@ import java.time.Instant;
  * Date: 9/13/2025
  */
 @Entity
-@Table(name = "USER_BRUTE_FORCE_GUARD")
+@Table(name = "USER_BRUTE_FORCE_GUARD", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_bfg_user_scope", columnNames = {"USER_ID", "scope"})
+})
 @NoArgsConstructor
 @AllArgsConstructor
 @Getter
@@ -6,16 +6,18 @@ import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
 import my.taxi.base.BaseEntity;
+import my.taxi.entities.user.converter.RoleSetConverter;
 import my.taxi.entities.user.enums.Language;
 import my.taxi.entities.user.enums.Role;
+import my.taxi.security.RoleAuthorities;
+import org.hibernate.annotations.ColumnDefault;
 import org.hibernate.annotations.SQLDelete;
 import org.hibernate.annotations.SQLRestriction;
 import org.springframework.security.core.GrantedAuthority;
-import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 
 import java.util.Collection;
-import java.util.HashSet;
+import java.util.EnumSet;
 import java.util.Set;
 
 /**
@@ -25,7 +27,7 @@ import java.util.Set;
 @Entity
 @Table(name = "users",
         indexes = {
-                @Index(name = "idx_users_phone", columnList = "phone"),
+                // phone lookups use the partial idx_users_phone_live (db/migration/V2)
                 @Index(name = "idx_users_blocked", columnList = "blocked")
         })
 @SQLDelete(sql = "UPDATE users SET deleted_at = now() WHERE id = ?")
@@ -38,12 +40,13 @@ public class User extends BaseEntity implements UserDetails {
     @Column(name = "phone", unique = true, nullable = false)
     private String phone;
 
-    @ElementCollection(fetch = FetchType.EAGER)
-    @CollectionTable(name = "user_roles",
-            joinColumns = @JoinColumn(name = "user_id", foreignKey = @ForeignKey(name = "fk_user_roles_user")))
-    @Enumerated(EnumType.STRING)
-    @Column(name = "role", nullable = false, length = 24)
-    private Set<Role> roles = new HashSet<>();
+    /**
+     * Bitmask column (see {@link RoleSetConverter}), so loading a user is a single-row read.
+     */
+    @Convert(converter = RoleSetConverter.class)
+    @ColumnDefault("0")
+    @Column(name = "roles_mask", nullable = false)
+    private Set<Role> roles = EnumSet.noneOf(Role.class);
 
     @Enumerated(EnumType.STRING)
     private Language language = Language.UZ_LATN;
@@ -78,9 +81,7 @@ public class User extends BaseEntity implements UserDetails {
 
     @Override
     public Collection<? extends GrantedAuthority> getAuthorities() {
-        return roles.stream()
-                .map(role -> new SimpleGrantedAuthority(role.name()))
-                .toList();
+        return RoleAuthorities.authorities(roles);
     }
 
     @Override
@@ -0,0 +1,48 @@
+package my.taxi.entities.user.converter;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+import my.taxi.entities.user.enums.Role;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * Stores a role set as one integer column: bit {@code 1 << role.ordinal()} per role.
+ *
+ * <p>The mask depends on the declaration order of {@link Role}, so new roles are appended only.</p>
+ *
+ * Created by Avaz Absamatov
+ * Date: 10/18/2026
+ */
+@Converter
+public class RoleSetConverter implements AttributeConverter<Set<Role>, Integer> {
+    private static final Role[] ROLES = Role.values();
+
+    static {
+        if (ROLES.length > Integer.SIZE - 1) throw new IllegalStateException("roles_mask holds at most 31 roles");
+    }
+
+    @Override
+    public Integer convertToDatabaseColumn(Set<Role> roles) {
+        return toMask(roles);
+    }
+
+    @Override
+    public Set<Role> convertToEntityAttribute(Integer mask) {
+        return fromMask(mask == null ? 0 : mask);
+    }
+
+    public static int toMask(Set<Role> roles) {
+        if (roles == null) return 0;
+        int mask = 0;
+        for (Role r : roles) mask |= 1 << r.ordinal();
+        return mask;
+    }
+
+    public static EnumSet<Role> fromMask(int mask) {
+        EnumSet<Role> roles = EnumSet.noneOf(Role.class);
+        for (Role r : ROLES) if ((mask & (1 << r.ordinal())) != 0) roles.add(r);
+        return roles;
+    }
+}
@@ -1,6 +1,8 @@
 package my.taxi.entities.user.enums;
 
 /**
+ * Persisted as a bitmask by ordinal (users.roles_mask): append new roles, never reorder.
+ *
  * Created by Avaz Absamatov
  * Date: 9/10/2025
  */
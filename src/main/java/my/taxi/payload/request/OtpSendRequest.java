@@ -0,0 +1,18 @@
+package my.taxi.payload.request;
+
+import jakarta.validation.constraints.NotBlank;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.io.Serializable;
+
+/**
+ * Created by Avaz Absamatov
+ * Date: 10/18/2026
+ */
+@Getter
+@Setter
+public class OtpSendRequest implements Serializable {
+    @NotBlank(message = "{login.phone.notBlank}")
+    private String phone;
+}
@@ -0,0 +1,13 @@
+package my.taxi.payload.response;
+
+import java.io.Serializable;
+
+/**
+ * @param expiresIn seconds until the sent code expires
+ * @param resendIn  seconds until another code may be requested
+ *
+ * Created by Avaz Absamatov
+ * Date: 10/18/2026
+ */
+public record OtpSendResponse(long expiresIn, long resendIn) implements Serializable {
+}
@@ -0,0 +1,75 @@
+package my.taxi.repository;
+
+import my.taxi.entities.auth.OtpCode;
+import my.taxi.entities.auth.enums.OtpStatus;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.Optional;
+
+/**
+ * Created by Avaz Absamatov
+ * Date: 10/18/2026
+ */
+public interface OtpCodeRepository extends JpaRepository<OtpCode, Long> {
+
+    /**
+     * Latest OTP row of the phone's current window; used to rebuild in-memory state after a
+     * restart or when another node issued the code.
+     */
+    Optional<OtpCode> findFirstByPhoneAndCreatedAtAfterOrderByCreatedAtDesc(String phone, Instant after);
+
+    /**
+     * Puts a fresh code on the window's row (resend): attempts reset, status back to PENDING,
+     * {@code resendCount} incremented. Applies only while the row still has {@code resendCount}
+     * resends and is not BLOCKED, so sends on another node are never overwritten.
+     *
+     * @return 0 when the row has moved on; reload it
+     */
+    @Transactional
+    @Modifying
+    @Query("""
+              UPDATE OtpCode o
+                 SET o.codeHash = :codeHash, o.salt = :salt, o.expiresAt = :expiresAt,
+                     o.lastSentAt = :sentAt, o.resendCount = o.resendCount + 1, o.attempts = 0,
+                     o.status = my.taxi.entities.auth.enums.OtpStatus.PENDING
+               WHERE o.id = :id AND o.resendCount = :resendCount
+                 AND o.status <> my.taxi.entities.auth.enums.OtpStatus.BLOCKED
+            """)
+    int reissue(@Param("id") Long id,
+                @Param("resendCount") short resendCount,
+                @Param("codeHash") String codeHash,
+                @Param("salt") String salt,
+                @Param("expiresAt") Instant expiresAt,
+                @Param("sentAt") Instant sentAt);
+
+    /**
+     * The row as it is now, read on the primary ({@link #findById} is read-only and may be served
+     * by a lagging replica).
+     */
+    @Transactional
+    @Query("SELECT o FROM OtpCode o WHERE o.id = :id")
+    Optional<OtpCode> findCurrentById(@Param("id") Long id);
+
+    /**
+     * Moves the code from {@code expected} to {@code status}, provided no other node has changed
+     * the row since it was read (same status, same code).
+     *
+     * @return 0 when the row has moved on; reload it
+     */
+    @Transactional
+    @Modifying
+    @Query("""
+              UPDATE OtpCode o SET o.status = :status, o.attempts = :attempts
+               WHERE o.id = :id AND o.status = :expected AND o.codeHash = :codeHash
+            """)
+    int updateStatus(@Param("id") Long id,
+                     @Param("expected") OtpStatus expected,
+                     @Param("codeHash") String codeHash,
+                     @Param("status") OtpStatus status,
+                     @Param("attempts") short attempts);
+}
@@ -1,12 +1,14 @@
 package my.taxi.repository;
 
 import my.taxi.entities.auth.RefreshToken;
-import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
 
-import java.util.List;
+import java.time.Instant;
 import java.util.Optional;
 
 /**
@@ -14,10 +16,30 @@ import java.util.Optional;
  * 15.09.2025
  */
 public interface RefreshTokenRepository extends JpaRepository<RefreshToken, Long> {
+    /**
+     * High bits of the advisory lock keys taken by {@link #lockSessionsOf(Long)}, so they cannot
+     * collide with other advisory lock users (e.g. Flyway).
+     */
+    long SESSION_LOCK_SPACE = 0x5E55L << 48;
 
-    Optional<RefreshToken> findByJti(String jti);
+    /**
+     * Serialises session changes of one user until the current transaction ends: concurrent logins
+     * of the same user queue here, every other user is unaffected. No row is locked.
+     */
+    default void lockSessionsOf(Long userId) {
+        advisoryXactLock(SESSION_LOCK_SPACE | userId);
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    @Query(value = "SELECT 1 FROM pg_advisory_xact_lock(:key)", nativeQuery = true)
+    int advisoryXactLock(@Param("key") long key);
 
-    List<RefreshToken> findByFamilyId(String familyId);
+    /**
+     * Decides whether a refresh token is still ACTIVE, so it always reads the primary: a lagging
+     * replica would still show a just-revoked session.
+     */
+    @Transactional
+    Optional<RefreshToken> findByJti(String jti);
 
     @Query("""
               SELECT r FROM RefreshToken r
@@ -26,17 +48,66 @@ public interface RefreshTokenRepository extends JpaRepository<RefreshToken, Long
     Optional<RefreshToken> findActiveByUserAndDevice(@Param("userId") Long userId,
                                                      @Param("deviceFp") String deviceFp);
 
+    @Transactional(readOnly = true)
     @Query("""
               SELECT count(r) FROM RefreshToken r
               WHERE r.userId=:userId AND r.status='ACTIVE'
             """)
     long countActiveByUser(@Param("userId") Long userId);
 
+    /**
+     * Revokes every not-yet-revoked token of a device family in one statement.
+     *
+     * @return number of rows revoked (0 when the family was already revoked)
+     */
+    @Transactional
+    @Modifying(flushAutomatically = true)
+    @Query("""
+              UPDATE RefreshToken r SET r.status = my.taxi.entities.auth.enums.TokenStatus.REVOKED
+              WHERE r.familyId = :familyId AND r.status <> my.taxi.entities.auth.enums.TokenStatus.REVOKED
+            """)
+    int revokeFamily(@Param("familyId") String familyId);
+
+    /**
+     * Revokes the user's ACTIVE tokens that are past {@code expiresAt}, so they neither occupy a
+     * max-session slot nor shadow the new session of their device.
+     *
+     * @return number of rows revoked
+     */
+    @Transactional
+    @Modifying(flushAutomatically = true)
     @Query("""
-      SELECT r FROM RefreshToken r
-      WHERE r.userId=:userId AND r.status='ACTIVE'
-      ORDER BY coalesce(r.lastUsedAt, r.createdAt) ASC
-    """)
-    List<RefreshToken> findActiveOldestFirst(@Param("userId") Long userId, Pageable pageable);
+              UPDATE RefreshToken r SET r.status = my.taxi.entities.auth.enums.TokenStatus.REVOKED
+              WHERE r.userId = :userId AND r.status = 'ACTIVE' AND r.expiresAt < :now
+            """)
+    int revokeExpiredByUser(@Param("userId") Long userId, @Param("now") Instant now);
+
+    /**
+     * Revokes the {@code count} least recently used ACTIVE tokens of a user (max-session eviction).
+     *
+     * @return number of rows revoked
+     */
+    @Transactional
+    @Modifying(flushAutomatically = true)
+    @Query(value = """
+              UPDATE refresh_tokens SET status = 'REVOKED'
+              WHERE jti IN (SELECT jti FROM refresh_tokens
+                            WHERE user_id = :userId AND status = 'ACTIVE'
+                            ORDER BY coalesce(last_used_at, created_at) ASC
+                            LIMIT :count)
+            """, nativeQuery = true)
+    int revokeOldestActive(@Param("userId") Long userId, @Param("count") int count);
 
+    /**
+     * Revokes every ACTIVE token of a user ("logout from all devices").
+     *
+     * @return number of rows revoked
+     */
+    @Transactional
+    @Modifying(flushAutomatically = true)
+    @Query("""
+              UPDATE RefreshToken r SET r.status = my.taxi.entities.auth.enums.TokenStatus.REVOKED
+              WHERE r.userId = :userId AND r.status = 'ACTIVE'
+            """)
+    int revokeAllActiveByUser(@Param("userId") Long userId);
 }
@@ -2,10 +2,27 @@ package my.taxi.repository;
 
 import my.taxi.entities.user.StaffAccount;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Optional;
 
 /**
  * Created by Avaz Absamatov
  * Date: 9/24/2025
  */
 public interface StaffAccountRepository extends JpaRepository<StaffAccount, Long> {
+    @Transactional(readOnly = true)
+    @Query("SELECT s FROM StaffAccount s JOIN FETCH s.user u WHERE u.phone = :phone")
+    Optional<StaffAccount> findByPhone(@Param("phone") String phone);
+
+    /**
+     * Replaces the hash only if it is still {@code oldHash}, so a concurrent password change wins.
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE StaffAccount s SET s.password = :newHash WHERE s.id = :id AND s.password = :oldHash")
+    int rehash(@Param("id") Long id, @Param("oldHash") String oldHash, @Param("newHash") String newHash);
 }
@@ -0,0 +1,32 @@
+package my.taxi.repository;
+
+import my.taxi.entities.auth.UserBruteForceGuard;
+import my.taxi.entities.auth.enums.BrutScope;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Optional;
+
+/**
+ * Created by Avaz Absamatov
+ * Date: 10/18/2026
+ */
+public interface UserBruteForceGuardRepository extends JpaRepository<UserBruteForceGuard, Long> {
+
+    Optional<UserBruteForceGuard> findByUserIdAndScope(Long userId, BrutScope scope);
+
+    /**
+     * Same effect as {@link UserBruteForceGuard#registrationSuccess()}, without loading the row.
+     */
+    @Transactional
+    @Modifying
+    @Query("""
+              UPDATE UserBruteForceGuard g
+                 SET g.strike = 0, g.windowsStartedAt = null, g.lockedUntil = null
+               WHERE g.userId = :userId AND g.scope = :scope
+            """)
+    int clearLock(@Param("userId") Long userId, @Param("scope") BrutScope scope);
+}
@@ -1,8 +1,14 @@
 package my.taxi.repository;
 
 import my.taxi.entities.user.User;
+import my.taxi.repository.projection.LoginRow;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.List;
 import java.util.Optional;
 
 /**
@@ -10,7 +16,35 @@ import java.util.Optional;
  * 15.09.2025
  */
 public interface UserRepository extends JpaRepository<User, Long> {
+    @Transactional(readOnly = true)
     Optional<User> findByPhone(String phone);
 
     boolean existsByPhone(String phone);
+
+    @Query("SELECT u.id FROM User u WHERE u.phone = :phone")
+    Optional<Long> findIdByPhone(@Param("phone") String phone);
+
+    @Query("SELECT u.tokenVersion FROM User u WHERE u.id = :id")
+    Optional<Long> findTokenVersionById(@Param("id") Long id);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE User u SET u.tokenVersion = u.tokenVersion + 1 WHERE u.id = :id")
+    int incrementTokenVersion(@Param("id") Long id);
+
+    /**
+     * Login read model: user + roles + tokenVersion + every ACTIVE refresh token (oldest first)
+     * in one round-trip. Assemble with {@link my.taxi.repository.projection.LoginSnapshot#from(List)}.
+     */
+    @Query(value = """
+              SELECT u.id AS userId, u.phone AS phone, u.token_version AS tokenVersion,
+                     u.roles_mask AS rolesMask,
+                     rt.jti AS jti, rt.family_id AS familyId, rt.device_fp AS deviceFp,
+                     rt.expires_at AS expiresAt, rt.last_used_at AS lastUsedAt, rt.user_agent AS userAgent
+              FROM users u
+              LEFT JOIN refresh_tokens rt ON rt.user_id = u.id AND rt.status = 'ACTIVE'
+              WHERE u.phone = :phone AND u.deleted_at IS NULL
+              ORDER BY coalesce(rt.last_used_at, rt.created_at) ASC
+            """, nativeQuery = true)
+    List<LoginRow> findLoginRows(@Param("phone") String phone);
 }
@@ -0,0 +1,35 @@
+package my.taxi.repository.projection;
+
+import java.time.Instant;
+
+/**
+ * One row of {@link my.taxi.repository.UserRepository#findLoginRows(String)}: user columns repeated
+ * for each ACTIVE refresh token (token columns are {@code null} when the user has none).
+ *
+ * Created by Avaz Absamatov
+ * Date: 10/18/2026
+ */
+public interface LoginRow {
+    Long getUserId();
+
+    String getPhone();
+
+    Long getTokenVersion();
+
+    /**
+     * {@code users.roles_mask}, see {@link my.taxi.entities.user.converter.RoleSetConverter}.
+     */
+    Integer getRolesMask();
+
+    String getJti();
+
+    String getFamilyId();
+
+    String getDeviceFp();
+
+    Instant getExpiresAt();
+
+    Instant getLastUsedAt();
+
+    String getUserAgent();
+}
@@ -0,0 +1,59 @@
+package my.taxi.repository.projection;
+
+import my.taxi.security.RoleAuthorities;
+
+import java.time.Instant;
+import java.util.*;
+
+/**
+ * Everything {@code handleLogin} needs, read in a single statement: the user, its tokenVersion and
+ * roles, and all ACTIVE refresh tokens ordered oldest-first.
+ *
+ * Created by Avaz Absamatov
+ * Date: 10/18/2026
+ */
+public record LoginSnapshot(long userId,
+                            String phone,
+                            long tokenVersion,
+                            Set<String> roles,
+                            List<ActiveSession> sessions) {
+
+    public static Optional<LoginSnapshot> from(List<LoginRow> rows) {
+        if (rows.isEmpty()) return Optional.empty();
+
+        LoginRow first = rows.getFirst();
+        List<ActiveSession> sessions = new ArrayList<>(rows.size());
+        for (LoginRow r : rows) {
+            if (r.getJti() == null) continue;
+            sessions.add(new ActiveSession(r.getJti(), r.getFamilyId(), r.getDeviceFp(),
+                    r.getExpiresAt(), r.getLastUsedAt(), r.getUserAgent()));
+        }
+        return Optional.of(new LoginSnapshot(
+                first.getUserId(),
+                first.getPhone(),
+                first.getTokenVersion() == null ? 0L : first.getTokenVersion(),
+                RoleAuthorities.names(first.getRolesMask() == null ? 0 : first.getRolesMask()),
+                List.copyOf(sessions)));
+    }
+
+    /**
+     * Unexpired ACTIVE refresh token bound to the given device fingerprint, if any.
+     */
+    public Optional<ActiveSession> sessionFor(String deviceFp) {
+        for (ActiveSession s : sessions) {
+            if (deviceFp.equals(s.deviceFp()) && !s.isExpired()) return Optional.of(s);
+        }
+        return Optional.empty();
+    }
+
+    public record ActiveSession(String jti,
+                                String familyId,
+                                String deviceFp,
+                                Instant expiresAt,
+                                Instant lastUsedAt,
+                                String userAgent) {
+        public boolean isExpired() {
+            return Instant.now().isAfter(expiresAt);
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package my.taxi.security;
+
+/**
+ * The parts of a verified access token a request needs, extracted once per token.
+ *
+ * @param userId       {@code uid}
+ * @param phone        {@code sub}
+ * @param rolesMask    {@code roles}, as a {@link RoleAuthorities} mask
+ * @param tokenVersion {@code ver}
+ * @param expiresAt    {@code exp}, epoch millis
+ *
+ * Created by Avaz Absamatov
+ * Date: 10/18/2026
+ */
+public record AccessTokenClaims(long userId, String phone, int rolesMask, long tokenVersion, long expiresAt) {
+
+    public JwtAuthentication toAuthentication() {
+        return new JwtAuthentication(userId, phone, tokenVersion, rolesMask);
+    }
+}
@@ -0,0 +1,59 @@
+package my.taxi.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.Ticker;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import my.taxi.security.web.JwtProperties;
+import my.taxi.utils.HashUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Verified access tokens → their {@link AccessTokenClaims}, so a client re-sending the same token
+ * pays for verification ({@link FastAccessTokenVerifier}) only on its first request.
+ *
+ * <p>Keyed by the SHA-256 of the token (bearer tokens are not kept on the heap). Each entry expires
+ * at the token's {@code exp}; the cache is size-bounded (Caffeine's window + segmented LRU). Entries
+ * are not dropped on a tokenVersion bump: the filter checks every token's {@code ver} against
+ * {@link TokenVersionCache}, so a revoked token is rejected while still cached. Rejected tokens are
+ * never cached. Exposed as {@code cache_*{cache="jwt.claims"}}.</p>
+ *
+ * Created by Avaz Absamatov
+ * Date: 10/18/2026
+ */
+@Component
+public class AccessTokenClaimsCache {
+    private final FastAccessTokenVerifier verifier;
+    private final Cache<String, AccessTokenClaims> claims;
+
+    @Autowired
+    public AccessTokenClaimsCache(FastAccessTokenVerifier verifier, JwtProperties properties, MeterRegistry registry) {
+        this(verifier, properties, registry, Ticker.systemTicker());
+    }
+
+    AccessTokenClaimsCache(FastAccessTokenVerifier verifier, JwtProperties properties, MeterRegistry registry,
+                           Ticker ticker) {
+        this.verifier = verifier;
+        this.claims = Caffeine.newBuilder()
+                .maximumSize(properties.getClaimsCache().getMaxSize())
+                .expireAfter(Expiry.creating((String digest, AccessTokenClaims c) ->
+                        Duration.ofMillis(Math.max(0, c.expiresAt() - System.currentTimeMillis()))))
+                .ticker(ticker)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(registry, claims, "jwt.claims");
+    }
+
+    /**
+     * @return claims of a valid access token
+     * @throws io.jsonwebtoken.JwtException if the token is invalid, expired or not an access token
+     */
+    public AccessTokenClaims resolve(String token) {
+        return claims.get(HashUtils.sha256Hex(token), digest -> verifier.verify(token));
+    }
+}
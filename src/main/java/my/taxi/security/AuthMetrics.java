@@ -0,0 +1,86 @@
+package my.taxi.security;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+/**
+ * Timers for the login/refresh flows, tagged by outcome.
+ *
+ * <p>Exposed on {@code /actuator/prometheus} as {@code auth_login_seconds},
+ * {@code auth_refresh_seconds}, {@code auth_staff_login_seconds} and {@code auth_otp_*_seconds} histograms. Repository calls are timed by Spring Boot as
+ * {@code spring_data_repository_invocations_seconds}.</p>
+ *
+ * Created by Avaz Absamatov
+ * Date: 10/18/2026
+ */
+@Component
+public class AuthMetrics {
+    public static final String OUTCOME_ERROR = "error";
+    public static final String OUTCOME_SUCCESS = "success";
+
+    // login outcomes
+    public static final String LOGIN_REUSED_SESSION = "reused_session";
+    public static final String LOGIN_NEW_SESSION = "new_session";
+    public static final String LOGIN_USER_NOT_FOUND = "user_not_found";
+
+    // refresh reject reasons, in the order they are checked
+    public static final String REFRESH_MISSING_COOKIE = "missing_cookie";
+    public static final String REFRESH_INVALID_JWT = "invalid_jwt";
+    public static final String REFRESH_WRONG_TYPE = "wrong_type";
+    public static final String REFRESH_VERSION_MISMATCH = "version_mismatch";
+    public static final String REFRESH_MISSING_ROW = "missing_row";
+    public static final String REFRESH_INACTIVE_ROW = "inactive_row";
+    public static final String REFRESH_FINGERPRINT_MISMATCH = "fingerprint_mismatch";
+    public static final String REFRESH_USER_NOT_FOUND = "user_not_found";
+
+    // staff login outcomes (besides success / user_not_found)
+    public static final String STAFF_BAD_CREDENTIALS = "bad_credentials";
+    public static final String STAFF_LOCKED = "locked";
+    public static final String STAFF_DISABLED = "disabled";
+    public static final String STAFF_BUSY = "busy";
+
+    // OTP outcomes
+    public static final String OTP_SENT = "sent";
+    public static final String OTP_COOLDOWN = "cooldown";
+    public static final String OTP_BLOCKED = "blocked";
+    public static final String OTP_NOT_FOUND = "not_found";
+    public static final String OTP_EXPIRED = "expired";
+    public static final String OTP_WRONG_CODE = "wrong_code";
+
+    private final MeterRegistry registry;
+
+    public AuthMetrics(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    public Timer.Sample start() {
+        return Timer.start(registry);
+    }
+
+    public void stopLogin(Timer.Sample sample, String outcome) {
+        sample.stop(timer("auth.login", outcome));
+    }
+
+    public void stopRefresh(Timer.Sample sample, String outcome) {
+        sample.stop(timer("auth.refresh", outcome));
+    }
+
+    public void stopStaffLogin(Timer.Sample sample, String outcome) {
+        sample.stop(timer("auth.staff.login", outcome));
+    }
+
+    public void stopOtpSend(Timer.Sample sample, String outcome) {
+        sample.stop(timer("auth.otp.send", outcome));
+    }
+
+    public void stopOtpVerify(Timer.Sample sample, String outcome) {
+        sample.stop(timer("auth.otp.verify", outcome));
+    }
+
+    private Timer timer(String name, String outcome) {
+        return Timer.builder(name)
+                .tag("outcome", outcome)
+                .register(registry);
+    }
+}
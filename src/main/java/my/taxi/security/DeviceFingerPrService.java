@@ -1,32 +1,121 @@
 package my.taxi.security;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
 import jakarta.servlet.http.HttpServletRequest;
 import my.taxi.utils.HashUtils;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Locale;
 
 /**
+ * User-scoped device fingerprint: HMAC over {@code X-Device-Id}, userId and the lower-cased
+ * User-Agent.
+ *
+ * <p>A device sends the same headers on every login and refresh, so results are memoised per
+ * (device id, userId, raw User-Agent) in a Caffeine cache and the HMAC runs once per device until its
+ * entry has been idle for {@code security.fingerprint.cache.expire-after-access}. Both headers are
+ * client-controlled, so the cache is bounded by the estimated heap its entries hold
+ * ({@code security.fingerprint.cache.max-weight}) and headers longer than
+ * {@link #MAX_CACHED_HEADER_CHARS} are never cached. Exposed as
+ * {@code cache_*{cache="device.fingerprint"}}; cache maintenance runs on the calling thread.</p>
+ *
  * Created by Avaz Absamatov
  * Date: 10/10/2025
  */
 @Service
 public class DeviceFingerPrService {
-    @Value("${security.hmacSecret}")
-    private String hmacSecret;
+    private static final String NO_USER_AGENT = "NA";
+    static final int MAX_CACHED_HEADER_CHARS = 512;
+    /**
+     * Key and value objects, the 64-char fingerprint and the cache node, in bytes.
+     */
+    private static final int ENTRY_OVERHEAD = 320;
+
+    private final String hmacSecret;
+    private final Timer timer;
+    private final Cache<DeviceKey, String> fingerprints;
+
+    public DeviceFingerPrService(@Value("${security.hmacSecret}") String hmacSecret,
+                                 @Value("${security.fingerprint.cache.max-weight:32MB}") DataSize maxWeight,
+                                 @Value("${security.fingerprint.cache.expire-after-access:6h}") Duration expireAfterAccess,
+                                 MeterRegistry registry) {
+        this.hmacSecret = hmacSecret;
+        this.timer = Timer.builder("device.fingerprint").register(registry);
+        this.fingerprints = Caffeine.newBuilder()
+                .maximumWeight(maxWeight.toBytes())
+                .weigher((DeviceKey key, String fp) -> ENTRY_OVERHEAD + 2 * (key.clientId().length() + key.userAgentLength()))
+                .expireAfterAccess(expireAfterAccess)
+                .executor(Runnable::run)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(registry, fingerprints, "device.fingerprint");
+    }
 
     public String userScopedFingerprint(HttpServletRequest req, long userId) {
         String clientId = req.getHeader("X-Device-Id");
         if (clientId == null || clientId.isBlank())
             throw new IllegalArgumentException("Missing X-Device-Id header");
 
-        String ua = normalizeUa(req.getHeader("User-Agent"));
-        String data = clientId + ":" + userId + ":" + ua;  // user-scoped fingerprint
-        return HashUtils.hmacSha256Hex(hmacSecret, data);
+        DeviceKey key = new DeviceKey(clientId, userId, req.getHeader("User-Agent"));
+        if (clientId.length() > MAX_CACHED_HEADER_CHARS || key.userAgentLength() > MAX_CACHED_HEADER_CHARS)
+            return fingerprint(key);
+        return fingerprints.get(key, this::fingerprint);
+    }
+
+    /**
+     * The headers a fingerprint depends on, as sent; User-Agents differing only in case are
+     * separate entries with the same fingerprint.
+     */
+    private record DeviceKey(String clientId, long userId, String userAgent) {
+        int userAgentLength() {
+            return userAgent == null ? 0 : userAgent.length();
+        }
+    }
+
+    /**
+     * Cache miss or uncached headers; only these are timed as {@code device.fingerprint}.
+     */
+    private String fingerprint(DeviceKey key) {
+        // user-scoped fingerprint over "clientId:userId:ua"
+        return timer.record(() -> HashUtils.hmacSha256Hex(hmacSecret, hmacKey(key.clientId(), key.userId(), key.userAgent())));
+    }
+
+    /**
+     * UTF-8 of {@code clientId + ":" + userId + ":" + normalizedUa}; an ASCII User-Agent (the usual
+     * case) is lower-cased while it is copied in, without an intermediate String.
+     */
+    static byte[] hmacKey(String clientId, long userId, String ua) {
+        if (ua != null && !isAscii(ua))
+            return (clientId + ":" + userId + ":" + ua.toLowerCase(Locale.ROOT)).getBytes(StandardCharsets.UTF_8);
+
+        byte[] id = clientId.getBytes(StandardCharsets.UTF_8);
+        byte[] uid = Long.toString(userId).getBytes(StandardCharsets.US_ASCII);
+        String tail = ua == null ? NO_USER_AGENT : ua;
+        byte[] out = new byte[id.length + uid.length + 2 + tail.length()];
+        System.arraycopy(id, 0, out, 0, id.length);
+        int p = id.length;
+        out[p++] = ':';
+        System.arraycopy(uid, 0, out, p, uid.length);
+        p += uid.length;
+        out[p++] = ':';
+        boolean fold = ua != null;
+        for (int i = 0; i < tail.length(); i++) {
+            char c = tail.charAt(i);
+            out[p++] = (byte) (fold && c >= 'A' && c <= 'Z' ? c | 0x20 : c);
+        }
+        return out;
     }
 
-    private String normalizeUa(String ua) {
-        if (ua == null) return "NA";
-        ua = ua.toLowerCase();
-        return ua;
+    private static boolean isAscii(String s) {
+        for (int i = 0; i < s.length(); i++) if (s.charAt(i) >= 0x80) return false;
+        return true;
     }
 }
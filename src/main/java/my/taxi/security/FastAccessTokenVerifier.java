@@ -0,0 +1,272 @@
+package my.taxi.security;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.UnsupportedJwtException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import my.taxi.security.web.JwtProperties;
+import my.taxi.utils.HashUtils;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Verifies the access tokens {@link JWTService} issues without going through jjwt.
+ *
+ * <p>Our tokens always have the same shape: an HS256 header with an optional {@code kid} and the
+ * claims {@code typ uid roles ver iss aud sub jti iat exp}. For that shape the signature is checked
+ * with a pooled, pre-keyed Mac directly over the token bytes and the payload is read with a
+ * streaming parser straight into {@link AccessTokenClaims}; no claims map is built.</p>
+ *
+ * <p>Anything else (another algorithm, unknown header fields or claims, unexpected value types,
+ * unknown {@code kid}, bad signature, wrong issuer, expired, not an access token, malformed Base64)
+ * goes to {@link JWTService#verify}, so results and exceptions are the same as before.
+ * Counted as {@code jwt_verify_path_total{path="fast"|"fallback"}}.</p>
+ *
+ * Created by Avaz Absamatov
+ * Date: 10/18/2026
+ */
+@Component
+public class FastAccessTokenVerifier {
+    private static final String HS256 = "HS256";
+    private static final String ACCESS = "access";
+    private static final int SIGNATURE_LENGTH = 32;
+    private static final JsonFactory JSON = new JsonFactory();
+    private static final byte[] BASE64URL = new byte[128];
+
+    static {
+        Arrays.fill(BASE64URL, (byte) -1);
+        String alphabet = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789-_";
+        for (int i = 0; i < alphabet.length(); i++) BASE64URL[alphabet.charAt(i)] = (byte) i;
+    }
+
+    private final JWTService jwt;
+    private final JwtKeyRing keyRing;
+    private final String issuer;
+    private final long clockSkewMillis;
+    /**
+     * Mac for tokens without {@code kid}; keyed like {@link JwtKeyRing#resolve(String)} with null.
+     */
+    private final HashUtils.HmacSha256 unnamedKeyMac;
+    /**
+     * Only kids the ring accepts end up here.
+     */
+    private final ConcurrentMap<String, HashUtils.HmacSha256> macs = new ConcurrentHashMap<>();
+    private final Counter fastPath;
+    private final Counter fallback;
+
+    public FastAccessTokenVerifier(JWTService jwt, JwtKeyRing keyRing, JwtProperties properties, MeterRegistry registry) {
+        this.jwt = jwt;
+        this.keyRing = keyRing;
+        this.issuer = properties.getIssuer();
+        this.clockSkewMillis = keyRing.allowedClockSkewMillis();
+        this.unnamedKeyMac = HashUtils.hmacSha256(keyRing.resolve(null).getEncoded());
+        this.fastPath = Counter.builder("jwt.verify.path").tag("path", "fast").register(registry);
+        this.fallback = Counter.builder("jwt.verify.path").tag("path", "fallback").register(registry);
+    }
+
+    /**
+     * @return claims of a valid access token
+     * @throws JwtException if the token is invalid, expired or not an access token
+     */
+    public AccessTokenClaims verify(String token) {
+        AccessTokenClaims claims = tryFast(token);
+        if (claims != null) {
+            fastPath.increment();
+            return claims;
+        }
+        fallback.increment();
+        return fromClaims(jwt.verify(token));
+    }
+
+    /**
+     * The jjwt path: extracts {@link AccessTokenClaims} from already verified claims.
+     */
+    static AccessTokenClaims fromClaims(Claims body) {
+        if (!ACCESS.equals(body.get("typ", String.class)))
+            throw new UnsupportedJwtException("Not an access token");
+        Number uid = body.get("uid", Number.class);
+        Number ver = body.get("ver", Number.class);
+        Date exp = body.getExpiration();
+        if (uid == null || ver == null || exp == null)
+            throw new UnsupportedJwtException("Access token without uid/ver/exp");
+        return new AccessTokenClaims(uid.longValue(), body.getSubject(),
+                RoleAuthorities.mask(body.get("roles")), ver.longValue(), exp.getTime());
+    }
+
+    /**
+     * @return the claims, or {@code null} when jjwt has to decide
+     */
+    AccessTokenClaims tryFast(String token) {
+        int dot1 = token.indexOf('.');
+        int dot2 = dot1 < 0 ? -1 : token.indexOf('.', dot1 + 1);
+        if (dot2 < 0 || token.indexOf('.', dot2 + 1) >= 0) return null;
+
+        byte[] bytes = token.getBytes(StandardCharsets.ISO_8859_1);
+        HashUtils.HmacSha256 mac = headerMac(bytes, dot1);
+        if (mac == null) return null;
+
+        // provided signature in [0, 32), computed one in [32, 64)
+        byte[] signature = new byte[SIGNATURE_LENGTH * 2];
+        if (decode(bytes, dot2 + 1, bytes.length - dot2 - 1, signature) != SIGNATURE_LENGTH) return null;
+        mac.mac(bytes, 0, dot2, signature, SIGNATURE_LENGTH);
+        int diff = 0; // constant time, like MessageDigest.isEqual
+        for (int i = 0; i < SIGNATURE_LENGTH; i++) diff |= signature[i] ^ signature[SIGNATURE_LENGTH + i];
+        if (diff != 0) return null;
+
+        byte[] payload = new byte[(dot2 - dot1) * 3 / 4];
+        int n = decode(bytes, dot1 + 1, dot2 - dot1 - 1, payload);
+        return n < 0 ? null : payload(payload, n);
+    }
+
+    private HashUtils.HmacSha256 headerMac(byte[] bytes, int len) {
+        byte[] header = new byte[len * 3 / 4 + 1];
+        int n = decode(bytes, 0, len, header);
+        if (n < 0) return null;
+
+        String alg = null;
+        String kid = null;
+        try (JsonParser p = JSON.createParser(header, 0, n)) {
+            if (p.nextToken() != JsonToken.START_OBJECT) return null;
+            JsonToken t;
+            while ((t = p.nextToken()) == JsonToken.FIELD_NAME) {
+                String name = p.currentName();
+                if (p.nextToken() != JsonToken.VALUE_STRING) return null;
+                switch (name) {
+                    case "alg" -> alg = p.getText();
+                    case "kid" -> kid = p.getText();
+                    case "typ" -> {
+                    }
+                    default -> {
+                        return null;
+                    }
+                }
+            }
+            if (t != JsonToken.END_OBJECT || p.nextToken() != null) return null;
+        } catch (IOException e) {
+            return null;
+        }
+        if (!HS256.equals(alg)) return null;
+        if (kid == null) return unnamedKeyMac;
+        try {
+            return macs.computeIfAbsent(kid, k -> HashUtils.hmacSha256(keyRing.resolve(k).getEncoded()));
+        } catch (JwtException e) {
+            return null;
+        }
+    }
+
+    private AccessTokenClaims payload(byte[] payload, int n) {
+        String typ = null, iss = null, sub = null;
+        long uid = 0, ver = 0, exp = 0;
+        boolean hasUid = false, hasVer = false, hasExp = false;
+        int roles = 0;
+        // jjwt reads the payload as claims only if it is exactly {...}; otherwise it is a plaintext JWS
+        if (n < 2 || payload[0] != '{' || payload[n - 1] != '}') return null;
+        try (JsonParser p = JSON.createParser(payload, 0, n)) {
+            if (p.nextToken() != JsonToken.START_OBJECT) return null;
+            JsonToken t;
+            while ((t = p.nextToken()) == JsonToken.FIELD_NAME) {
+                String name = p.currentName();
+                JsonToken v = p.nextToken();
+                switch (name) {
+                    case "typ", "iss", "sub", "aud", "jti" -> {
+                        if (v != JsonToken.VALUE_STRING) return null;
+                        switch (name) {
+                            case "typ" -> typ = p.getText();
+                            case "iss" -> iss = p.getText();
+                            case "sub" -> sub = p.getText();
+                            default -> {
+                            }
+                        }
+                    }
+                    case "uid", "ver", "exp", "iat" -> {
+                        if (v != JsonToken.VALUE_NUMBER_INT) return null;
+                        long value = p.getLongValue();
+                        switch (name) {
+                            case "uid" -> { uid = value; hasUid = true; }
+                            case "ver" -> { ver = value; hasVer = true; }
+                            case "exp" -> { exp = value; hasExp = true; }
+                            default -> {
+                            }
+                        }
+                    }
+                    case "roles" -> {
+                        roles = roles(p, v);
+                        if (roles < 0) return null;
+                    }
+                    default -> {
+                        return null;
+                    }
+                }
+            }
+            if (t != JsonToken.END_OBJECT || p.nextToken() != null) return null;
+        } catch (IOException e) {
+            return null;
+        }
+
+        if (!ACCESS.equals(typ) || !issuer.equals(iss) || !hasUid || !hasVer || !hasExp) return null;
+        if (exp < 0 || exp > Long.MAX_VALUE / 1000) return null;
+        long expiresAt = exp * 1000;
+        if (System.currentTimeMillis() - clockSkewMillis > expiresAt) return null;
+        return new AccessTokenClaims(uid, sub, roles, ver, expiresAt);
+    }
+
+    /**
+     * Mask of a {@code roles} value (one name or an array of names), or -1 for anything else.
+     */
+    private static int roles(JsonParser p, JsonToken v) throws IOException {
+        if (v == JsonToken.VALUE_STRING) return RoleAuthorities.mask(p.getText());
+        if (v != JsonToken.START_ARRAY) return -1;
+        int mask = 0;
+        JsonToken t;
+        while ((t = p.nextToken()) == JsonToken.VALUE_STRING) mask |= RoleAuthorities.mask(p.getText());
+        return t == JsonToken.END_ARRAY ? mask : -1;
+    }
+
+    /**
+     * Strict unpadded Base64url decode of {@code src[off, off+len)} into {@code dst}.
+     *
+     * @return decoded length, or -1 if the input is not unpadded Base64url or does not fit
+     */
+    static int decode(byte[] src, int off, int len, byte[] dst) {
+        if (len % 4 == 1) return -1;
+        int out = len / 4 * 3 + Math.max(0, len % 4 - 1);
+        if (out > dst.length) return -1;
+        int d = 0;
+        int end = off + len;
+        int i = off;
+        for (; i + 4 <= end; i += 4) {
+            int a = sextet(src[i]), b = sextet(src[i + 1]), c = sextet(src[i + 2]), e = sextet(src[i + 3]);
+            if ((a | b | c | e) < 0) return -1;
+            int bits = a << 18 | b << 12 | c << 6 | e;
+            dst[d++] = (byte) (bits >> 16);
+            dst[d++] = (byte) (bits >> 8);
+            dst[d++] = (byte) bits;
+        }
+        int rest = end - i;
+        if (rest > 0) {
+            int a = sextet(src[i]), b = sextet(src[i + 1]), c = rest == 3 ? sextet(src[i + 2]) : 0;
+            if ((a | b | c) < 0) return -1;
+            int bits = a << 18 | b << 12 | c << 6;
+            dst[d++] = (byte) (bits >> 16);
+            if (rest == 3) dst[d++] = (byte) (bits >> 8);
+        }
+        return d;
+    }
+
+    /**
+     * 6-bit value of a Base64url character, -1 for anything else.
+     */
+    private static int sextet(byte c) {
+        return c < 0 ? -1 : BASE64URL[c];
+    }
+}
@@ -1,39 +1,46 @@
 package my.taxi.security;
 
 import io.jsonwebtoken.*;
-import io.jsonwebtoken.io.Decoders;
-import io.jsonwebtoken.security.Keys;
-import lombok.RequiredArgsConstructor;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import my.taxi.security.web.JwtProperties;
 import org.springframework.stereotype.Service;
 
 import javax.crypto.SecretKey;
 import java.util.*;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Created by Avaz Absamatov
  * Date: 10/1/2025
  */
 @Service
-@RequiredArgsConstructor
 public class JWTService {
-    private static final long CLOCK_SKEW_MILLIS = 2000L;
     private final JwtProperties properties;
+    private final JwtKeyRing keyRing;
+    private final Timer signAccessTimer;
+    private final Timer signRefreshTimer;
+    private final Timer verifyValidTimer;
+    private final Timer verifyInvalidTimer;
 
-    public SecretKey getSigningKey() {
-        byte[] keyBytes = Decoders.BASE64.decode(properties.getSecretBase64());
-        return Keys.hmacShaKeyFor(keyBytes);
+    public JWTService(JwtProperties properties, JwtKeyRing keyRing, MeterRegistry registry) {
+        this.properties = properties;
+        this.keyRing = keyRing;
+        this.signAccessTimer = Timer.builder("jwt.sign").tag("typ", "access").register(registry);
+        this.signRefreshTimer = Timer.builder("jwt.sign").tag("typ", "refresh").register(registry);
+        this.verifyValidTimer = Timer.builder("jwt.verify").tag("outcome", "valid").register(registry);
+        this.verifyInvalidTimer = Timer.builder("jwt.verify").tag("outcome", "invalid").register(registry);
     }
 
-    private JwtParser parser() {
-        return Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .requireIssuer(properties.getIssuer())
-                .setAllowedClockSkewSeconds(CLOCK_SKEW_MILLIS)
-                .build();
+    public SecretKey getSigningKey() {
+        return keyRing.activeKey();
     }
 
     public String issueAccess(Long userId, String subjectPhone, Set<String> roles, long tokenVersion) {
+        return signAccessTimer.record(() -> buildAccess(userId, subjectPhone, roles, tokenVersion));
+    }
+
+    private String buildAccess(Long userId, String subjectPhone, Set<String> roles, long tokenVersion) {
         long now = System.currentTimeMillis();
         Map<String, Object> claims = Map.of(
                 "typ", "access",
@@ -49,11 +56,16 @@ public class JWTService {
                 .setId(UUID.randomUUID().toString()) // jti
                 .setIssuedAt(new Date(now))
                 .setExpiration(new Date(now + properties.getAccessExpMin() * 60_000L))
+                .setHeaderParam(JwsHeader.KEY_ID, keyRing.activeKid())
                 .signWith(getSigningKey(), SignatureAlgorithm.HS256)
                 .compact();
     }
 
     public String issueRefresh(Long userId, String familyId, String jti, long tokenVersion) {
+        return signRefreshTimer.record(() -> buildRefresh(userId, familyId, jti, tokenVersion));
+    }
+
+    private String buildRefresh(Long userId, String familyId, String jti, long tokenVersion) {
         long now = System.currentTimeMillis();
         Map<String, Object> claims = Map.of(
                 "typ", "refresh",
@@ -69,12 +81,21 @@ public class JWTService {
                 .setId(jti)
                 .setIssuedAt(new Date(now))
                 .setExpiration(new Date(now + properties.getRefreshExpDays() * 24L * 60L * 60L * 1000L))
+                .setHeaderParam(JwsHeader.KEY_ID, keyRing.activeKid())
                 .signWith(getSigningKey(), SignatureAlgorithm.HS256)
                 .compact();
     }
 
     public Claims verify(String token) {
-        return parser().parseClaimsJws(token).getBody();
+        long start = System.nanoTime();
+        try {
+            Claims claims = keyRing.parser().parseClaimsJws(token).getBody();
+            verifyValidTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            return claims;
+        } catch (RuntimeException e) {
+            verifyInvalidTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            throw e;
+        }
     }
 
     public boolean isExpired(String token) {
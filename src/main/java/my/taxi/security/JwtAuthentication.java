@@ -0,0 +1,102 @@
+package my.taxi.security;
+
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.io.Serial;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Authentication of a request carrying a verified access token, built straight from its claims.
+ *
+ * <p>It is its own principal: {@code uid}, {@code sub} (phone), {@code ver} and the roles mask are
+ * all a caller needs, so nothing is loaded from the user table. Authorities come from
+ * {@link RoleAuthorities} and are shared between all tokens with the same roles.</p>
+ *
+ * Created by Avaz Absamatov
+ * Date: 10/18/2026
+ */
+public final class JwtAuthentication implements Authentication {
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    private final long userId;
+    private final String phone;
+    private final long tokenVersion;
+    private final int rolesMask;
+
+    public JwtAuthentication(long userId, String phone, long tokenVersion, int rolesMask) {
+        this.userId = userId;
+        this.phone = phone;
+        this.tokenVersion = tokenVersion;
+        this.rolesMask = rolesMask;
+    }
+
+    /**
+     * The current request's token authentication, if it has one.
+     */
+    public static Optional<JwtAuthentication> current() {
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        return auth instanceof JwtAuthentication jwt ? Optional.of(jwt) : Optional.empty();
+    }
+
+    public long getUserId() {
+        return userId;
+    }
+
+    public String getPhone() {
+        return phone;
+    }
+
+    public long getTokenVersion() {
+        return tokenVersion;
+    }
+
+    public int getRolesMask() {
+        return rolesMask;
+    }
+
+    @Override
+    public List<GrantedAuthority> getAuthorities() {
+        return RoleAuthorities.roleAuthorities(rolesMask);
+    }
+
+    @Override
+    public Object getCredentials() {
+        return null;
+    }
+
+    @Override
+    public Object getDetails() {
+        return null;
+    }
+
+    @Override
+    public JwtAuthentication getPrincipal() {
+        return this;
+    }
+
+    @Override
+    public boolean isAuthenticated() {
+        return true;
+    }
+
+    @Override
+    public void setAuthenticated(boolean authenticated) {
+        if (!authenticated) {
+            throw new IllegalArgumentException("JwtAuthentication is immutable; clear the SecurityContext instead");
+        }
+    }
+
+    @Override
+    public String getName() {
+        return phone;
+    }
+
+    @Override
+    public String toString() {
+        return "JwtAuthentication[userId=" + userId + ", roles=" + RoleAuthorities.names(rolesMask) + "]";
+    }
+}
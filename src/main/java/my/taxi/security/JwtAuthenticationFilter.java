@@ -1,24 +1,18 @@
 package my.taxi.security;
 
-import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.NonNull;
 import lombok.RequiredArgsConstructor;
+import my.taxi.security.web.UserProfilePort;
 import org.springframework.http.HttpHeaders;
-import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
-import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.core.userdetails.User;
-import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
-import java.util.List;
-
 /**
  * Created by Avaz Absamatov
  * Date: 10/1/2025
@@ -26,7 +20,8 @@ import java.util.List;
 @Component
 @RequiredArgsConstructor
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
-    private final JWTService jwt;
+    private final AccessTokenClaimsCache claimsCache;
+    private final UserProfilePort userProfilePort;
 
     @Override
     protected void doFilterInternal(
@@ -42,47 +37,22 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         }
         String token = auth.substring(7);
 
-        Claims claims;
+        AccessTokenClaims claims;
         try {
-            claims = jwt.verify(token);
+            claims = claimsCache.resolve(token);
         } catch (Exception e) {
             response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
             return;
         }
 
-        if (!"access".equals(claims.get("typ", String.class))) {
+        // Global invalidation: token must carry the user's current tokenVersion
+        if (claims.tokenVersion() != userProfilePort.currentTokenVersion(claims.userId())) {
             response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
             return;
         }
 
-        String phone = claims.getSubject();
-        List<String> roleNames = castRole(claims);
-
-        List<SimpleGrantedAuthority> authorities = roleNames.stream()
-                .map(r -> r.startsWith("ROLE_") ? r : "ROLE_" + r)
-                .map(SimpleGrantedAuthority::new)
-                .toList();
-
-        var principal = User.withUsername(phone)
-                .password("")
-                .authorities(authorities)
-                .build();
-
-        var authToken = new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities());
-        authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
-        SecurityContextHolder.getContext().setAuthentication(authToken);
+        SecurityContextHolder.getContext().setAuthentication(claims.toAuthentication());
 
         chain.doFilter(request, response);
     }
-
-    private static List<String> castRole(Claims claims) {
-        Object raw = claims.get("roles");
-        return switch (raw) {
-            case List<?> objects -> objects.stream()
-                    .map(String::valueOf)
-                    .toList();
-            case String s -> List.of(s);
-            case null, default -> List.of();
-        };
-    }
 }
@@ -0,0 +1,116 @@
+package my.taxi.security;
+
+import io.jsonwebtoken.*;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+import my.taxi.security.web.JwtProperties;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.SecretKey;
+import java.security.Key;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Holds every HMAC key we accept for JWTs, decoded exactly once at startup.
+ *
+ * <p>Tokens are signed with the <b>active</b> key and carry its id in the {@code kid} header.
+ * Verification resolves the key by {@code kid}, so tokens issued with a previous key stay valid
+ * until they expire. Tokens without a {@code kid} (issued before key rotation existed) are checked
+ * against {@code security.jwt.secret-base64}.</p>
+ *
+ * <p>Rotation without logging anybody out:</p>
+ * <ol>
+ *   <li>Add the new key to {@code security.jwt.keys} and deploy (all nodes now verify it).</li>
+ *   <li>Switch {@code security.jwt.active-kid} to the new key and deploy (nodes sign with it).</li>
+ *   <li>After {@code refresh-exp-days} remove the old key.</li>
+ * </ol>
+ *
+ * <p>The map and the parser are immutable, so one instance is shared by all request threads.</p>
+ *
+ * Created by Avaz Absamatov
+ * Date: 10/18/2026
+ */
+@Component
+public class JwtKeyRing {
+    public static final String DEFAULT_KID = "default";
+    private static final long CLOCK_SKEW_SECONDS = 2L;
+
+    private final Map<String, SecretKey> keys;
+    private final SecretKey legacyKey;
+    private final String activeKid;
+    private final SecretKey activeKey;
+    private final JwtParser parser;
+
+    public JwtKeyRing(JwtProperties properties) {
+        Map<String, SecretKey> ring = new LinkedHashMap<>();
+        for (JwtProperties.KeyProps key : properties.getKeys()) {
+            if (key.getKid() == null || key.getKid().isBlank())
+                throw new IllegalStateException("security.jwt.keys[].kid must not be blank");
+            if (ring.put(key.getKid(), decode(key.getSecretBase64())) != null)
+                throw new IllegalStateException("Duplicate JWT kid: " + key.getKid());
+        }
+
+        this.legacyKey = properties.getSecretBase64() == null ? null : decode(properties.getSecretBase64());
+        if (ring.isEmpty()) {
+            if (legacyKey == null)
+                throw new IllegalStateException("Either security.jwt.secret-base64 or security.jwt.keys must be set");
+            ring.put(DEFAULT_KID, legacyKey);
+        }
+
+        this.keys = Collections.unmodifiableMap(ring);
+        this.activeKid = properties.getActiveKid() == null ? ring.keySet().iterator().next() : properties.getActiveKid();
+        this.activeKey = keys.get(activeKid);
+        if (activeKey == null)
+            throw new IllegalStateException("security.jwt.active-kid '" + activeKid + "' is not in security.jwt.keys");
+
+        this.parser = Jwts.parserBuilder()
+                .setSigningKeyResolver(new SigningKeyResolverAdapter() {
+                    @Override
+                    public Key resolveSigningKey(JwsHeader header, Claims claims) {
+                        return resolve(header.getKeyId());
+                    }
+                })
+                .requireIssuer(properties.getIssuer())
+                .setAllowedClockSkewSeconds(CLOCK_SKEW_SECONDS)
+                .build();
+    }
+
+    public String activeKid() {
+        return activeKid;
+    }
+
+    public SecretKey activeKey() {
+        return activeKey;
+    }
+
+    /**
+     * Skew the parser tolerates on {@code exp}.
+     */
+    public long allowedClockSkewMillis() {
+        return CLOCK_SKEW_SECONDS * 1000L;
+    }
+
+    /**
+     * Shared, thread-safe parser that resolves the verification key by {@code kid}.
+     */
+    public JwtParser parser() {
+        return parser;
+    }
+
+    /**
+     * @param kid key id from the JWS header, may be {@code null} for tokens issued before rotation
+     * @return verification key
+     * @throws UnsupportedJwtException when the kid is unknown (e.g. key already retired)
+     */
+    public SecretKey resolve(String kid) {
+        SecretKey key = kid == null ? (legacyKey != null ? legacyKey : activeKey) : keys.get(kid);
+        if (key == null) throw new UnsupportedJwtException("Unknown JWT kid: " + kid);
+        return key;
+    }
+
+    private static SecretKey decode(String secretBase64) {
+        return Keys.hmacShaKeyFor(Decoders.BASE64.decode(secretBase64));
+    }
+}
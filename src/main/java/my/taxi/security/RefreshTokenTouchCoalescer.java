@@ -0,0 +1,138 @@
+package my.taxi.security;
+
+import jakarta.annotation.PreDestroy;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import my.taxi.entities.auth.RefreshToken;
+import my.taxi.security.web.JwtProperties;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Write-behind buffer for refresh-token audit fields ({@code lastUsedAt}, {@code userAgent}).
+ *
+ * <p>Login/refresh only record the touch in memory; a timer flushes the latest touch per jti as one
+ * batched JDBC UPDATE. Touches within {@code security.jwt.touch.min-interval} of the stored value
+ * are dropped entirely, so a typical refresh is a single read with no write.</p>
+ *
+ * <p>The UPDATE never moves {@code last_used_at} backwards, so flushes from several nodes can
+ * interleave safely. Pending touches are flushed on shutdown; a crash loses at most one flush
+ * interval of audit data, never security state.</p>
+ *
+ * Created by Avaz Absamatov
+ * Date: 10/18/2026
+ */
+@Slf4j
+@Component
+@Lazy(false) // @Scheduled must be registered even with spring.main.lazy-initialization
+public class RefreshTokenTouchCoalescer {
+    private static final int USER_AGENT_MAX = 256;
+    private static final String UPDATE_SQL = """
+            UPDATE refresh_tokens
+               SET last_used_at = ?, user_agent = coalesce(?, user_agent)
+             WHERE jti = ? AND (last_used_at IS NULL OR last_used_at < ?)
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Duration minInterval;
+    private final int batchSize;
+    private final int maxPending;
+    private final Map<String, Touch> pending = new ConcurrentHashMap<>();
+    private final Counter skipped;
+    private final Counter written;
+    private final Timer flushTimer;
+
+    public RefreshTokenTouchCoalescer(JdbcTemplate jdbcTemplate, JwtProperties properties, MeterRegistry registry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.minInterval = properties.getTouch().getMinInterval();
+        this.batchSize = properties.getTouch().getBatchSize();
+        this.maxPending = properties.getTouch().getMaxPending();
+        this.skipped = registry.counter("refresh_token.touch", "result", "skipped");
+        this.written = registry.counter("refresh_token.touch", "result", "written");
+        this.flushTimer = registry.timer("refresh_token.touch.flush");
+        Gauge.builder("refresh_token.touch.pending", pending, Map::size).register(registry);
+    }
+
+    /**
+     * Records that the token was used now.
+     *
+     * @param rt        token as read from the DB (not modified)
+     * @param userAgent current User-Agent, or {@code null} to keep the stored one
+     */
+    public void touch(RefreshToken rt, String userAgent) {
+        touch(rt.getJti(), rt.getLastUsedAt(), rt.getUserAgent(), userAgent);
+    }
+
+    /**
+     * Same as {@link #touch(RefreshToken, String)} for callers that only hold the stored values.
+     */
+    public void touch(String jti, Instant storedLastUsedAt, String storedUserAgent, String userAgent) {
+        final Instant now = Instant.now();
+        final String ua = truncate(userAgent);
+        if (isFresh(storedLastUsedAt, now) && (ua == null || ua.equals(storedUserAgent))
+                || pending.size() >= maxPending && !pending.containsKey(jti)) {
+            skipped.increment();
+            return;
+        }
+
+        // Latest time wins; a touch without a User-Agent keeps the one already pending
+        pending.merge(jti, new Touch(now, ua), (old, cur) ->
+                new Touch(cur.lastUsedAt(), cur.userAgent() != null ? cur.userAgent() : old.userAgent()));
+    }
+
+    @Scheduled(fixedDelayString = "${security.jwt.touch.flush-interval:5s}")
+    public void flush() {
+        if (pending.isEmpty()) return;
+
+        List<Object[]> batch = new ArrayList<>(Math.min(pending.size(), batchSize));
+        for (String jti : pending.keySet()) {
+            Touch t = pending.remove(jti);
+            if (t == null) continue;
+            Timestamp at = Timestamp.from(t.lastUsedAt());
+            batch.add(new Object[]{at, t.userAgent(), jti, at});
+            if (batch.size() == batchSize) {
+                write(batch);
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) write(batch);
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+    }
+
+    private void write(List<Object[]> batch) {
+        try {
+            flushTimer.record(() -> jdbcTemplate.batchUpdate(UPDATE_SQL, batch));
+            written.increment(batch.size());
+        } catch (Exception e) {
+            log.warn("Dropped {} refresh-token touches: {}", batch.size(), e.getMessage());
+        }
+    }
+
+    private boolean isFresh(Instant lastUsedAt, Instant now) {
+        return lastUsedAt != null && lastUsedAt.plus(minInterval).isAfter(now);
+    }
+
+    private static String truncate(String ua) {
+        return ua == null || ua.length() <= USER_AGENT_MAX ? ua : ua.substring(0, USER_AGENT_MAX);
+    }
+
+    private record Touch(Instant lastUsedAt, String userAgent) {
+    }
+}
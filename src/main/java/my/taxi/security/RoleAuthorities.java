@@ -0,0 +1,115 @@
+package my.taxi.security;
+
+import my.taxi.entities.user.converter.RoleSetConverter;
+import my.taxi.entities.user.enums.Role;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Immutable authority lists and role-name sets, built once per possible roles mask
+ * (see {@link RoleSetConverter}; 2^roles entries, 32 today) and shared by every user with the same roles.
+ *
+ * <p>{@link #authorities} are the bare role names the {@code User} entity exposes;
+ * {@link #roleAuthorities} carry the {@code ROLE_} prefix and back {@link JwtAuthentication}.</p>
+ *
+ * Created by Avaz Absamatov
+ * Date: 10/18/2026
+ */
+public final class RoleAuthorities {
+    private static final Role[] ROLES = Role.values();
+    private static final String ROLE_PREFIX = "ROLE_";
+    private static final List<GrantedAuthority>[] AUTHORITIES;
+    private static final List<GrantedAuthority>[] ROLE_AUTHORITIES;
+    private static final Set<String>[] NAMES;
+    /**
+     * Claim value → role bit; accepts both {@code DRIVER} and {@code ROLE_DRIVER}.
+     */
+    private static final Map<String, Integer> BITS;
+
+    static {
+        int masks = 1 << ROLES.length;
+        @SuppressWarnings("unchecked") List<GrantedAuthority>[] authorities = new List[masks];
+        @SuppressWarnings("unchecked") List<GrantedAuthority>[] roleAuthorities = new List[masks];
+        @SuppressWarnings("unchecked") Set<String>[] names = new Set[masks];
+        SimpleGrantedAuthority[] single = new SimpleGrantedAuthority[ROLES.length];
+        SimpleGrantedAuthority[] prefixed = new SimpleGrantedAuthority[ROLES.length];
+        Map<String, Integer> bits = new HashMap<>();
+        for (Role r : ROLES) {
+            single[r.ordinal()] = new SimpleGrantedAuthority(r.name());
+            prefixed[r.ordinal()] = new SimpleGrantedAuthority(ROLE_PREFIX + r.name());
+            bits.put(r.name(), 1 << r.ordinal());
+            bits.put(ROLE_PREFIX + r.name(), 1 << r.ordinal());
+        }
+
+        for (int mask = 0; mask < masks; mask++) {
+            List<GrantedAuthority> a = new ArrayList<>();
+            List<GrantedAuthority> p = new ArrayList<>();
+            Set<String> n = new LinkedHashSet<>();
+            for (Role r : ROLES) {
+                if ((mask & (1 << r.ordinal())) == 0) continue;
+                a.add(single[r.ordinal()]);
+                p.add(prefixed[r.ordinal()]);
+                n.add(r.name());
+            }
+            authorities[mask] = List.copyOf(a);
+            roleAuthorities[mask] = List.copyOf(p);
+            names[mask] = Set.copyOf(n);
+        }
+        AUTHORITIES = authorities;
+        ROLE_AUTHORITIES = roleAuthorities;
+        NAMES = names;
+        BITS = Map.copyOf(bits);
+    }
+
+    private RoleAuthorities() {
+    }
+
+    public static List<GrantedAuthority> authorities(Set<Role> roles) {
+        return AUTHORITIES[RoleSetConverter.toMask(roles)];
+    }
+
+    public static Set<String> names(Set<Role> roles) {
+        return NAMES[RoleSetConverter.toMask(roles)];
+    }
+
+    /**
+     * Role names for a raw {@code users.roles_mask} value; unknown bits are ignored.
+     */
+    public static Set<String> names(int mask) {
+        return NAMES[mask & (NAMES.length - 1)];
+    }
+
+    /**
+     * {@code ROLE_}-prefixed authorities for a roles mask; unknown bits are ignored.
+     */
+    public static List<GrantedAuthority> roleAuthorities(int mask) {
+        return ROLE_AUTHORITIES[mask & (ROLE_AUTHORITIES.length - 1)];
+    }
+
+    /**
+     * Mask of the {@code roles} claim (a list of names or a single name); unknown names are ignored.
+     */
+    public static int mask(Object rolesClaim) {
+        return switch (rolesClaim) {
+            case Iterable<?> names -> {
+                int mask = 0;
+                for (Object name : names) mask |= bit(name);
+                yield mask;
+            }
+            case null -> 0;
+            default -> bit(rolesClaim);
+        };
+    }
+
+    private static int bit(Object name) {
+        Integer bit = name == null ? null : BITS.get(name.toString());
+        return bit == null ? 0 : bit;
+    }
+}
@@ -0,0 +1,47 @@
+package my.taxi.security;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import my.taxi.repository.UserRepository;
+import my.taxi.security.web.JwtProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Node-local cache of {@code users.token_version} keyed by userId.
+ *
+ * <p>Checked on every authenticated request and every refresh, so it must not hit the DB per call.
+ * Entries are bounded by size and TTL; bumps are propagated to every node by
+ * {@link TokenVersionNotifier}, the TTL only limits staleness when a notification is lost.</p>
+ *
+ * Created by Avaz Absamatov
+ * Date: 10/18/2026
+ */
+@Component
+public class TokenVersionCache {
+    /**
+     * Returned for unknown/deleted users; never equals a {@code ver} claim.
+     */
+    public static final long UNKNOWN_USER = -1L;
+
+    private final LoadingCache<Long, Long> versions;
+
+    public TokenVersionCache(UserRepository userRepository, JwtProperties properties) {
+        JwtProperties.TokenVersionProps props = properties.getTokenVersion();
+        this.versions = Caffeine.newBuilder()
+                .maximumSize(props.getCacheMaxSize())
+                .expireAfterWrite(props.getCacheTtl())
+                .build(userId -> userRepository.findTokenVersionById(userId).orElse(UNKNOWN_USER));
+    }
+
+    public long get(long userId) {
+        return versions.get(userId);
+    }
+
+    public void invalidate(long userId) {
+        versions.invalidate(userId);
+    }
+
+    public void invalidateAll() {
+        versions.invalidateAll();
+    }
+}
@@ -0,0 +1,125 @@
+package my.taxi.security;
+
+import lombok.extern.slf4j.Slf4j;
+import my.taxi.security.web.JwtProperties;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.Statement;
+
+/**
+ * Propagates tokenVersion bumps between nodes over Postgres LISTEN/NOTIFY.
+ *
+ * <p>{@link #publish(long)} runs {@code pg_notify} inside the caller's transaction, so the
+ * notification is delivered only after the bump is committed. A single daemon thread per node keeps
+ * one dedicated connection in LISTEN mode and evicts the userId from {@link TokenVersionCache}.
+ * After a reconnect the whole cache is dropped because notifications may have been missed.</p>
+ *
+ * <p>The LISTEN connection is opened with {@link DriverManager} from {@code spring.datasource}, not
+ * borrowed: held for the node's lifetime, it would otherwise take a pool slot and a DB access gate
+ * permit away from requests.</p>
+ *
+ * Created by Avaz Absamatov
+ * Date: 10/18/2026
+ */
+@Slf4j
+@Component
+public class TokenVersionNotifier implements SmartLifecycle {
+    private static final int POLL_TIMEOUT_MILLIS = 5_000;
+    private static final long RECONNECT_DELAY_MILLIS = 2_000L;
+
+    private final DataSourceProperties dataSourceProperties;
+    private final JdbcTemplate jdbcTemplate;
+    private final TokenVersionCache cache;
+    private final String channel;
+    private final boolean listenEnabled;
+
+    private volatile boolean running;
+    private Thread listener;
+
+    public TokenVersionNotifier(DataSourceProperties dataSourceProperties,
+                                JdbcTemplate jdbcTemplate,
+                                TokenVersionCache cache,
+                                JwtProperties properties) {
+        this.dataSourceProperties = dataSourceProperties;
+        this.jdbcTemplate = jdbcTemplate;
+        this.cache = cache;
+        this.channel = properties.getTokenVersion().getNotifyChannel();
+        this.listenEnabled = properties.getTokenVersion().isListenEnabled();
+        if (!channel.matches("[a-z_][a-z0-9_]*"))
+            throw new IllegalStateException("Invalid notify channel: " + channel);
+    }
+
+    public void publish(long userId) {
+        jdbcTemplate.queryForObject("SELECT pg_notify(?, ?)", Object.class, channel, Long.toString(userId));
+    }
+
+    @Override
+    public void start() {
+        if (!listenEnabled) return;
+        running = true;
+        listener = Thread.ofPlatform()
+                .name("token-version-listener")
+                .daemon(true)
+                .start(this::listenLoop);
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        if (listener != null) listener.interrupt();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private void listenLoop() {
+        boolean firstConnect = true;
+        while (running) {
+            try (Connection connection = DriverManager.getConnection(dataSourceProperties.determineUrl(),
+                    dataSourceProperties.determineUsername(), dataSourceProperties.determinePassword())) {
+                try (Statement st = connection.createStatement()) {
+                    st.execute("LISTEN " + channel);
+                }
+                if (!firstConnect) cache.invalidateAll();
+                firstConnect = false;
+
+                PGConnection pg = connection.unwrap(PGConnection.class);
+                while (running) {
+                    PGNotification[] notifications = pg.getNotifications(POLL_TIMEOUT_MILLIS);
+                    if (notifications == null) continue;
+                    for (PGNotification n : notifications) onNotification(n.getParameter());
+                }
+            } catch (Exception e) {
+                if (!running) return;
+                log.warn("tokenVersion listener lost connection, retrying: {}", e.getMessage());
+                cache.invalidateAll();
+                sleepQuietly();
+            }
+        }
+    }
+
+    private void onNotification(String payload) {
+        try {
+            cache.invalidate(Long.parseLong(payload));
+        } catch (NumberFormatException e) {
+            log.warn("Ignoring malformed tokenVersion notification: {}", payload);
+        }
+    }
+
+    private void sleepQuietly() {
+        try {
+            Thread.sleep(RECONNECT_DELAY_MILLIS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,224 @@
+package my.taxi.security.bruteforce;
+
+import com.github.benmanes.caffeine.cache.CacheLoader;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import com.github.benmanes.caffeine.cache.Ticker;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import my.taxi.entities.auth.UserBruteForceGuard;
+import my.taxi.entities.auth.enums.BrutScope;
+import my.taxi.repository.UserBruteForceGuardRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-memory engine for the {@link UserBruteForceGuard} window/strike/lock policy.
+ *
+ * <p>State per (userId, scope) is one {@code long} updated with CAS, so concurrent failures for the
+ * same user never race on {@code strike} and never take a row lock:</p>
+ * <pre>
+ *  bit 63    | 62..56 | 55..28       | 27..0
+ *  escalated | strike | locked-until | window-start   (times: seconds since {@link #BASE})
+ * </pre>
+ * <p>{@code escalated} is set by the first lock and cleared by a success; while it is set the next
+ * lock uses {@code lock2} instead of {@code lock1}. Failures during a lock are not counted.</p>
+ *
+ * <p>The database only sees lock transitions (locked / cleared by success), written asynchronously by
+ * {@link BruteForceGuardWriter}. State is loaded back from {@code USER_BRUTE_FORCE_GUARD} on a miss,
+ * so a restart keeps active locks, and re-read in the background once an accessed entry is older
+ * than {@code sync-interval}, so a lock taken on another node applies here within that interval.
+ * Strikes are per node: before the first lock, up to {@code threshold} failures per node are
+ * counted in one window.</p>
+ *
+ * Created by Avaz Absamatov
+ * Date: 10/18/2026
+ */
+@Component
+public class BruteForceGuard {
+    /**
+     * Epoch second all packed times are relative to; 28 bits cover ~8.5 years of uptime.
+     */
+    private static final long BASE = Instant.now().getEpochSecond() - 1;
+    private static final int SCOPES = BrutScope.values().length;
+    private static final long TIME_MASK = (1L << 28) - 1;
+    private static final int LOCKED_SHIFT = 28;
+    private static final int STRIKE_SHIFT = 56;
+    private static final long STRIKE_MASK = 0x7F;
+    private static final long ESCALATED = 1L << 63;
+
+    private final BruteForceProperties props;
+    private final BruteForceGuardWriter writer;
+    private final LoadingCache<Long, AtomicLong> states;
+    private final Counter failures;
+    private final Counter locks;
+
+    @Autowired
+    public BruteForceGuard(BruteForceProperties props,
+                           UserBruteForceGuardRepository repository,
+                           BruteForceGuardWriter writer,
+                           MeterRegistry registry) {
+        this(props, repository, writer, registry, Ticker.systemTicker(), ForkJoinPool.commonPool());
+    }
+
+    BruteForceGuard(BruteForceProperties props,
+                    UserBruteForceGuardRepository repository,
+                    BruteForceGuardWriter writer,
+                    MeterRegistry registry,
+                    Ticker ticker,
+                    Executor refreshExecutor) {
+        this.props = props;
+        this.writer = writer;
+        this.states = Caffeine.newBuilder()
+                .maximumSize(props.getMaxTracked())
+                .expireAfterAccess(maxLifetime(props))
+                .refreshAfterWrite(props.getSyncInterval())
+                .ticker(ticker)
+                .executor(refreshExecutor)
+                .build(new CacheLoader<>() {
+                    @Override
+                    public AtomicLong load(Long key) {
+                        return new AtomicLong(persisted(repository, key));
+                    }
+
+                    @Override
+                    public AtomicLong reload(Long key, AtomicLong state) {
+                        mergeLock(state, persisted(repository, key));
+                        return state;
+                    }
+                });
+        this.failures = registry.counter("auth.brute_force", "event", "failure");
+        this.locks = registry.counter("auth.brute_force", "event", "lock");
+    }
+
+    /**
+     * Remaining lock time, {@link Duration#ZERO} if the user may try.
+     */
+    public Duration lockedFor(Long userId, BrutScope scope) {
+        long now = now();
+        long lockedUntil = lockedUntil(state(userId, scope).get());
+        return lockedUntil > now ? Duration.ofSeconds(lockedUntil - now) : Duration.ZERO;
+    }
+
+    /**
+     * Counts one failure. Returns the lock that this failure started, or {@link Duration#ZERO}.
+     */
+    public Duration registerFailure(Long userId, BrutScope scope, String ip, String userAgent) {
+        final BruteForceProperties.Policy policy = props.policyFor(scope);
+        final AtomicLong state = state(userId, scope);
+        final long now = now();
+        failures.increment();
+
+        long cur, next;
+        long lock;
+        do {
+            cur = state.get();
+            if (lockedUntil(cur) > now) return Duration.ZERO;
+            lock = 0;
+
+            long windowStart = windowStart(cur);
+            int strike = strike(cur);
+            if (windowStart == 0 || now - windowStart > policy.getWindow().toSeconds()) {
+                windowStart = now;
+                strike = 1;
+            } else {
+                strike++;
+            }
+
+            boolean escalated = (cur & ESCALATED) != 0;
+            long lockedUntil = 0;
+            if (strike >= Math.min(policy.getThreshold(), STRIKE_MASK)) {
+                lock = (escalated ? policy.getLock2() : policy.getLock1()).toSeconds();
+                lockedUntil = now + lock;
+                escalated = true;
+                strike = 0;
+                windowStart = 0;
+            }
+            next = pack(escalated, strike, lockedUntil, windowStart);
+        } while (!state.compareAndSet(cur, next));
+
+        if (lock == 0) return Duration.ZERO;
+        locks.increment();
+        writer.locked(userId, scope, policy, Instant.ofEpochSecond(BASE + now + lock), ip, userAgent);
+        return Duration.ofSeconds(lock);
+    }
+
+    /**
+     * Clears counters and escalation after a successful attempt.
+     */
+    public void registerSuccess(Long userId, BrutScope scope) {
+        long prev = state(userId, scope).getAndSet(0L);
+        if ((prev & ESCALATED) != 0) writer.cleared(userId, scope);
+    }
+
+    private AtomicLong state(Long userId, BrutScope scope) {
+        return states.get(userId * SCOPES + scope.ordinal());
+    }
+
+    private static long persisted(UserBruteForceGuardRepository repository, long key) {
+        return repository.findByUserIdAndScope(key / SCOPES, BrutScope.values()[(int) (key % SCOPES)])
+                .map(BruteForceGuard::fromRow)
+                .orElse(0L);
+    }
+
+    /**
+     * Adopts a persisted lock that ends later than the local one. A cleared or older row is ignored:
+     * this node's own writes may not have reached the database yet.
+     */
+    private static void mergeLock(AtomicLong state, long row) {
+        long cur;
+        do {
+            cur = state.get();
+            if (lockedUntil(row) <= lockedUntil(cur)) return;
+        } while (!state.compareAndSet(cur, row));
+    }
+
+    private static long fromRow(UserBruteForceGuard row) {
+        if (row.getLockedUntil() == null) return 0L;
+        long lockedUntil = Math.max(0, row.getLockedUntil().getEpochSecond() - BASE);
+        return pack(true, 0, Math.min(lockedUntil, TIME_MASK), 0);
+    }
+
+    private static long pack(boolean escalated, int strike, long lockedUntil, long windowStart) {
+        return (escalated ? ESCALATED : 0)
+                | ((long) strike & STRIKE_MASK) << STRIKE_SHIFT
+                | (lockedUntil & TIME_MASK) << LOCKED_SHIFT
+                | windowStart & TIME_MASK;
+    }
+
+    private static long windowStart(long s) {
+        return s & TIME_MASK;
+    }
+
+    private static long lockedUntil(long s) {
+        return (s >>> LOCKED_SHIFT) & TIME_MASK;
+    }
+
+    private static int strike(long s) {
+        return (int) ((s >>> STRIKE_SHIFT) & STRIKE_MASK);
+    }
+
+    private static long now() {
+        return Instant.now().getEpochSecond() - BASE;
+    }
+
+    /**
+     * Entries must outlive both the failure window and the longest lock.
+     */
+    private static Duration maxLifetime(BruteForceProperties props) {
+        Duration max = Duration.ZERO;
+        for (BrutScope scope : BrutScope.values()) {
+            BruteForceProperties.Policy p = props.policyFor(scope);
+            for (Duration d : new Duration[]{p.getWindow(), p.getLock2()}) {
+                if (d.compareTo(max) > 0) max = d;
+            }
+        }
+        return max;
+    }
+}
@@ -0,0 +1,63 @@
+package my.taxi.security.bruteforce;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import my.taxi.entities.auth.UserBruteForceGuard;
+import my.taxi.entities.auth.enums.BrutScope;
+import my.taxi.repository.UserBruteForceGuardRepository;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+
+/**
+ * Persists {@link BruteForceGuard} lock transitions off the request thread.
+ *
+ * Created by Avaz Absamatov
+ * Date: 10/18/2026
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class BruteForceGuardWriter {
+    private static final int USER_AGENT_MAX = 250;
+
+    private final UserBruteForceGuardRepository repository;
+
+    @Async
+    public void locked(Long userId, BrutScope scope, BruteForceProperties.Policy policy,
+                       Instant lockedUntil, String ip, String userAgent) {
+        try {
+            UserBruteForceGuard row = repository.findByUserIdAndScope(userId, scope).orElseGet(() -> {
+                UserBruteForceGuard g = new UserBruteForceGuard();
+                g.setUserId(userId);
+                g.setScope(scope);
+                return g;
+            });
+            row.setThreshold(policy.getThreshold());
+            row.setWindowSec((int) policy.getWindow().toSeconds());
+            row.setLock1Sec(policy.getLock1().toSeconds());
+            row.setLock2Sec(policy.getLock2().toSeconds());
+            row.setFailedAttempts(row.getFailedAttempts() + policy.getThreshold());
+            row.setStrike((short) 0);
+            row.setWindowsStartedAt(null);
+            row.setLastFailedAt(Instant.now());
+            row.setLockedUntil(lockedUntil);
+            row.setLastIP(ip);
+            row.setLastUserAgent(userAgent == null || userAgent.length() <= USER_AGENT_MAX
+                    ? userAgent : userAgent.substring(0, USER_AGENT_MAX));
+            repository.save(row);
+        } catch (Exception e) {
+            log.warn("Could not persist {} lock for user {}: {}", scope, userId, e.getMessage());
+        }
+    }
+
+    @Async
+    public void cleared(Long userId, BrutScope scope) {
+        try {
+            repository.clearLock(userId, scope);
+        } catch (Exception e) {
+            log.warn("Could not clear {} lock for user {}: {}", scope, userId, e.getMessage());
+        }
+    }
+}
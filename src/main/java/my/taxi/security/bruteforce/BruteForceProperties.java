@@ -0,0 +1,54 @@
+package my.taxi.security.bruteforce;
+
+import lombok.Getter;
+import lombok.Setter;
+import my.taxi.entities.auth.enums.BrutScope;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Created by Avaz Absamatov
+ * Date: 10/18/2026
+ */
+@Getter
+@Setter
+@Configuration
+@ConfigurationProperties(prefix = "app.brute-force")
+public class BruteForceProperties {
+    /**
+     * Defaults match {@code UserBruteForceGuard#defaults()}.
+     */
+    private Policy policy = new Policy();
+    /**
+     * Per-scope overrides of {@link #policy}.
+     */
+    private Map<BrutScope, Policy> scopes = new EnumMap<>(BrutScope.class);
+    private long maxTracked = 1_000_000;
+    /**
+     * How often an accessed entry is re-read from the database to pick up locks from other nodes.
+     */
+    private Duration syncInterval = Duration.ofSeconds(10);
+
+    public Policy policyFor(BrutScope scope) {
+        return scopes.getOrDefault(scope, policy);
+    }
+
+    @Getter
+    @Setter
+    public static class Policy {
+        /**
+         * Failures within {@link #window} that trigger a lock (at most 127).
+         */
+        private int threshold = 7;
+        private Duration window = Duration.ofSeconds(600);
+        /**
+         * First lock; every further lock before a success uses {@link #lock2}.
+         */
+        private Duration lock1 = Duration.ofSeconds(900);
+        private Duration lock2 = Duration.ofSeconds(86400);
+    }
+}
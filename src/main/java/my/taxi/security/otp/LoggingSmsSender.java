@@ -0,0 +1,24 @@
+package my.taxi.security.otp;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Local stub: writes the message, OTP code included, to the log instead of sending it. Active only
+ * with {@code app.otp.sms.provider=log} (set in application-dev.yml); without a provider there is no
+ * {@link SmsSender} and the application does not start.
+ *
+ * Created by Avaz Absamatov
+ * Date: 10/18/2026
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "app.otp.sms", name = "provider", havingValue = "log")
+public class LoggingSmsSender implements SmsSender {
+
+    @Override
+    public void send(String phone, String text) {
+        log.info("SMS to {}: {}", phone, text);
+    }
+}
@@ -0,0 +1,51 @@
+package my.taxi.security.otp;
+
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.validation.annotation.Validated;
+
+import java.time.Duration;
+
+/**
+ * Created by Avaz Absamatov
+ * Date: 10/18/2026
+ */
+@Getter
+@Setter
+@Configuration
+@Validated
+@ConfigurationProperties(prefix = "app.otp")
+public class OtpProperties {
+    /**
+     * Digits per code; at most 9 so every code fits an {@code int}.
+     */
+    @Min(4)
+    @Max(9)
+    private int codeLength = 6;
+    /**
+     * Lifetime of one sent code.
+     */
+    private Duration ttl = Duration.ofMinutes(2);
+    /**
+     * Minimum gap between two sends to the same phone.
+     */
+    private Duration resendCooldown = Duration.ofSeconds(60);
+    /**
+     * Sends allowed per phone within {@link #window}; the phone is blocked for the rest of it afterwards.
+     */
+    private int maxSends = 5;
+    private Duration window = Duration.ofHours(1);
+    /**
+     * Wrong codes accepted per sent code before it is blocked.
+     */
+    private short maxAttempts = 5;
+    /**
+     * Number of locks guarding the in-memory per-phone state.
+     */
+    private int lockStripes = 256;
+    private long maxTrackedPhones = 500_000;
+}
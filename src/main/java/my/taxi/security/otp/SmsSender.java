@@ -0,0 +1,15 @@
+package my.taxi.security.otp;
+
+/**
+ * Outbound SMS gateway used for OTP delivery.
+ *
+ * Created by Avaz Absamatov
+ * Date: 10/18/2026
+ */
+public interface SmsSender {
+    /**
+     * @param phone recipient in the same format as {@code users.phone}
+     * @param text  message body
+     */
+    void send(String phone, String text);
+}
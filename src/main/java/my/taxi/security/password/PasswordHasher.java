@@ -0,0 +1,118 @@
+package my.taxi.security.password;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Runs the deliberately slow {@link PasswordEncoder} work (BCrypt / Argon2) on a small dedicated pool.
+ *
+ * <p>At most {@code threads} hashes run at once and at most {@code queue-capacity} wait; anything
+ * beyond that, or a hash not done within {@code timeout}, fails with {@link BusyException} instead of
+ * queueing, so a flood of staff logins costs a few cores and never the threads serving riders.</p>
+ *
+ * <p>Exposed as {@code auth_password_hash_seconds{op}}, {@code auth_password_queue} and
+ * {@code auth_password_rejected_total}.</p>
+ *
+ * Created by Avaz Absamatov
+ * Date: 10/18/2026
+ */
+@Component
+public class PasswordHasher {
+    private final PasswordEncoder encoder;
+    private final ThreadPoolExecutor executor;
+    private final long timeoutNanos;
+    private final Timer matchesTimer;
+    private final Timer encodeTimer;
+    private final Counter rejected;
+
+    public PasswordHasher(PasswordEncoder encoder, PasswordProperties properties, MeterRegistry registry) {
+        PasswordProperties.HashingProps props = properties.getHashing();
+        int threads = props.getThreads() > 0
+                ? props.getThreads()
+                : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        this.encoder = encoder;
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                props.getQueueCapacity() > 0 ? new ArrayBlockingQueue<>(props.getQueueCapacity()) : new SynchronousQueue<>(),
+                Thread.ofPlatform().name("password-hash-", 0).daemon(true).factory(),
+                new ThreadPoolExecutor.AbortPolicy());
+        this.timeoutNanos = props.getTimeout().toNanos();
+        this.matchesTimer = Timer.builder("auth.password.hash").tag("op", "matches").register(registry);
+        this.encodeTimer = Timer.builder("auth.password.hash").tag("op", "encode").register(registry);
+        this.rejected = registry.counter("auth.password.rejected");
+        Gauge.builder("auth.password.queue", executor, e -> e.getQueue().size()).register(registry);
+    }
+
+    /**
+     * @throws BusyException if the pool is saturated or the check did not finish in time
+     */
+    public boolean matches(CharSequence raw, String encoded) {
+        return run(() -> matchesTimer.record(() -> encoder.matches(raw, encoded)));
+    }
+
+    /**
+     * @throws BusyException if the pool is saturated or hashing did not finish in time
+     */
+    public String encode(CharSequence raw) {
+        return run(() -> encodeTimer.record(() -> encoder.encode(raw)));
+    }
+
+    /**
+     * Whether {@code encoded} uses another algorithm or weaker parameters than configured. Cheap: no hashing.
+     */
+    public boolean upgradeEncoding(String encoded) {
+        return encoder.upgradeEncoding(encoded);
+    }
+
+    private <T> T run(Callable<T> task) {
+        Future<T> future;
+        try {
+            future = executor.submit(task);
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            throw new BusyException();
+        }
+        try {
+            return future.get(timeoutNanos, TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            rejected.increment();
+            throw new BusyException();
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new BusyException();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException re) throw re;
+            throw new IllegalStateException("Password hashing failed", e.getCause());
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * No hashing capacity right now; answer 503 and let the client retry.
+     */
+    public static class BusyException extends RuntimeException {
+        public BusyException() {
+            super("Password hashing is saturated", null, false, false);
+        }
+    }
+}
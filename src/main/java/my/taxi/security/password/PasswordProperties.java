@@ -0,0 +1,52 @@
+package my.taxi.security.password;
+
+import lombok.Getter;
+import lombok.Setter;
+import my.taxi.entities.auth.enums.PasswordAlgorithm;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * Created by Avaz Absamatov
+ * Date: 10/18/2026
+ */
+@Getter
+@Setter
+@Configuration
+@ConfigurationProperties(prefix = "app.password")
+public class PasswordProperties {
+    /**
+     * Algorithm new hashes are written with; older hashes are upgraded on the next successful login.
+     */
+    private PasswordAlgorithm algorithm = PasswordAlgorithm.BCRYPT;
+    private int bcryptStrength = 10;
+    private Argon2Props argon2 = new Argon2Props();
+    private HashingProps hashing = new HashingProps();
+
+    @Getter
+    @Setter
+    public static class Argon2Props {
+        private int memoryKib = 16_384;
+        private int iterations = 2;
+        private int parallelism = 1;
+    }
+
+    @Getter
+    @Setter
+    public static class HashingProps {
+        /**
+         * Threads hashing passwords; 0 = half the CPUs (at least one).
+         */
+        private int threads = 0;
+        /**
+         * Hashes waiting for a thread; beyond it logins get 503 at once.
+         */
+        private int queueCapacity = 32;
+        /**
+         * Longest a login waits for its hash (queue + hashing) before giving up with 503.
+         */
+        private Duration timeout = Duration.ofSeconds(3);
+    }
+}
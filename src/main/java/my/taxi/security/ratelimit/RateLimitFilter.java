@@ -0,0 +1,120 @@
+package my.taxi.security.ratelimit;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.NonNull;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.PathContainer;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Token-bucket rate limiting for the auth endpoints, run before {@code JwtAuthenticationFilter}.
+ *
+ * <p>Every request that matches a configured route takes one token from the route's per-IP bucket
+ * and, when the client sends {@code X-Device-Id}, from its per-device bucket. An empty bucket is
+ * answered with 429 + {@code Retry-After} here, before any JWT parsing or DB access.</p>
+ *
+ * Created by Avaz Absamatov
+ * Date: 10/18/2026
+ */
+@Component
+public class RateLimitFilter extends OncePerRequestFilter {
+    private static final String HDR_DEVICE_ID = "X-Device-Id";
+    private static final String HDR_FORWARDED_FOR = "X-Forwarded-For";
+    private static final int DEVICE_ID_MAX = 128;
+    private static final byte[] BODY = """
+            {"success":false,"error":{"code":429,"message":"Too many requests"}}"""
+            .getBytes(StandardCharsets.UTF_8);
+
+    private final RateLimitProperties props;
+    private final TokenBuckets buckets;
+    private final List<CompiledRoute> routes;
+    private final MeterRegistry registry;
+
+    public RateLimitFilter(RateLimitProperties props, MeterRegistry registry) {
+        this.props = props;
+        this.registry = registry;
+        this.buckets = new TokenBuckets(props.getMaxBuckets(), props.getIdleExpiry());
+        PathPatternParser parser = PathPatternParser.defaultInstance;
+        this.routes = props.getRoutes().stream()
+                .map(r -> new CompiledRoute(r, parser.parse(r.getPattern())))
+                .toList();
+    }
+
+    @Override
+    protected boolean shouldNotFilter(@NonNull HttpServletRequest request) {
+        return !props.isEnabled() || routes.isEmpty();
+    }
+
+    @Override
+    protected void doFilterInternal(@NonNull HttpServletRequest request,
+                                    @NonNull HttpServletResponse response,
+                                    @NonNull FilterChain chain) throws ServletException, IOException {
+        CompiledRoute route = match(request);
+        if (route == null) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        RateLimitProperties.Route cfg = route.config();
+        long waitMs = buckets.tryConsume(cfg.getName() + "|ip|" + clientIp(request),
+                cfg.getCapacity(), cfg.getRefillPerSecond());
+        String by = "ip";
+        if (waitMs == 0 && cfg.isPerDevice()) {
+            String deviceId = request.getHeader(HDR_DEVICE_ID);
+            if (deviceId != null && !deviceId.isBlank()) {
+                if (deviceId.length() > DEVICE_ID_MAX) deviceId = deviceId.substring(0, DEVICE_ID_MAX);
+                waitMs = buckets.tryConsume(cfg.getName() + "|dev|" + deviceId,
+                        cfg.getCapacity(), cfg.getRefillPerSecond());
+                by = "device";
+            }
+        }
+
+        if (waitMs == 0) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        registry.counter("http.rate_limit.rejected", "route", cfg.getName(), "key", by).increment();
+        long retryAfter = Math.max(1, Math.min(Integer.MAX_VALUE, (waitMs + 999) / 1000));
+        response.setStatus(429);
+        response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(retryAfter));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setContentLength(BODY.length);
+        response.getOutputStream().write(BODY);
+    }
+
+    private CompiledRoute match(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        PathContainer container = PathContainer.parsePath(path);
+        for (CompiledRoute r : routes) {
+            if (r.pattern().matches(container)) return r;
+        }
+        return null;
+    }
+
+    private String clientIp(HttpServletRequest request) {
+        if (props.isTrustForwardedFor()) {
+            String xff = request.getHeader(HDR_FORWARDED_FOR);
+            if (xff != null && !xff.isBlank()) {
+                int comma = xff.indexOf(',');
+                return (comma < 0 ? xff : xff.substring(0, comma)).trim();
+            }
+        }
+        return request.getRemoteAddr();
+    }
+
+    private record CompiledRoute(RateLimitProperties.Route config, PathPattern pattern) {
+    }
+}
@@ -0,0 +1,54 @@
+package my.taxi.security.ratelimit;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Created by Avaz Absamatov
+ * Date: 10/18/2026
+ */
+@Getter
+@Setter
+@Configuration
+@ConfigurationProperties(prefix = "app.rate-limit")
+public class RateLimitProperties {
+    private boolean enabled = true;
+    /**
+     * Upper bound of buckets kept in memory (all routes and keys together).
+     */
+    private long maxBuckets = 200_000;
+    /**
+     * A bucket untouched for this long is dropped; it would be full again anyway.
+     */
+    private Duration idleExpiry = Duration.ofMinutes(10);
+    /**
+     * Take the client IP from the first X-Forwarded-For entry (only behind a trusted proxy).
+     */
+    private boolean trustForwardedFor = false;
+    private List<Route> routes = new ArrayList<>();
+
+    @Getter
+    @Setter
+    public static class Route {
+        private String name;
+        /**
+         * Spring path pattern, e.g. {@code /api/v1/auth/login}.
+         */
+        private String pattern;
+        /**
+         * Burst size.
+         */
+        private int capacity = 10;
+        private double refillPerSecond = 1;
+        /**
+         * Also keep a bucket per {@code X-Device-Id} (in addition to the per-IP one).
+         */
+        private boolean perDevice = true;
+    }
+}
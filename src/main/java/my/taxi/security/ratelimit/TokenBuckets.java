@@ -0,0 +1,68 @@
+package my.taxi.security.ratelimit;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded, expiring set of token buckets.
+ *
+ * <p>Each bucket is one {@code long} updated with CAS: the upper 24 bits hold milli-tokens, the
+ * lower 40 bits the last refill time in ms since {@link #BASE}. No locks, no allocation on the hot
+ * path besides the key.</p>
+ *
+ * Created by Avaz Absamatov
+ * Date: 10/18/2026
+ */
+public class TokenBuckets {
+    private static final long BASE = System.currentTimeMillis();
+    private static final int TIME_BITS = 40;
+    private static final long TIME_MASK = (1L << TIME_BITS) - 1;
+    /**
+     * Largest capacity that fits the 24-bit milli-token field.
+     */
+    public static final int MAX_CAPACITY = (1 << 24) / 1000 - 1;
+
+    private final Cache<String, AtomicLong> buckets;
+
+    public TokenBuckets(long maxBuckets, Duration idleExpiry) {
+        this.buckets = Caffeine.newBuilder()
+                .maximumSize(maxBuckets)
+                .expireAfterAccess(idleExpiry)
+                .build();
+    }
+
+    /**
+     * Takes one token from the bucket {@code key}.
+     *
+     * @return 0 if a token was taken, otherwise milliseconds until one is available
+     */
+    public long tryConsume(String key, int capacity, double refillPerSecond) {
+        return tryConsume(key, capacity, refillPerSecond, System.currentTimeMillis() - BASE);
+    }
+
+    long tryConsume(String key, int capacity, double refillPerSecond, long nowMs) {
+        final long max = Math.min(capacity, MAX_CAPACITY) * 1000L;
+        // tokens/s == milli-tokens/ms
+        final double refillPerMs = refillPerSecond;
+        final AtomicLong bucket = buckets.get(key, k -> new AtomicLong(pack(max, nowMs)));
+
+        while (true) {
+            long cur = bucket.get();
+            long last = cur & TIME_MASK;
+            long elapsed = Math.max(0, nowMs - last);
+            long tokens = Math.min(max, (cur >>> TIME_BITS) + (long) (elapsed * refillPerMs));
+            if (tokens < 1000) {
+                return (long) Math.ceil((1000 - tokens) / refillPerMs);
+            }
+            long next = pack(tokens - 1000, Math.max(last, nowMs));
+            if (bucket.compareAndSet(cur, next)) return 0;
+        }
+    }
+
+    private static long pack(long milliTokens, long timeMs) {
+        return milliTokens << TIME_BITS | timeMs & TIME_MASK;
+    }
+}
@@ -0,0 +1,146 @@
+package my.taxi.security.retention;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Deletes (or archives) auth rows whose {@code expires_at} passed more than
+ * {@code app.retention.keep-after-expiry} ago.
+ *
+ * <p>Work is done in short auto-commit batches: each statement picks the oldest {@code batch-size}
+ * rows by {@code (expires_at, key)} through the expiry index with {@code FOR UPDATE SKIP LOCKED},
+ * so it never waits on a row a login/refresh is holding and never holds locks for longer than one
+ * batch. Between batches the reaper sleeps to stay under {@code max-rows-per-second}. Several nodes
+ * may run it at the same time.</p>
+ *
+ * <p>Tables already converted to monthly partitions (see {@code db/partitioning}) are handed to
+ * {@link PartitionMaintenance} first, which drops whole expired months; the batched delete then
+ * only has the current month's tail left to do.</p>
+ *
+ * Created by Avaz Absamatov
+ * Date: 10/18/2026
+ */
+@Slf4j
+@Component
+@Lazy(false) // @Scheduled must be registered even with spring.main.lazy-initialization
+@ConditionalOnProperty(prefix = "app.retention", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class ExpiredRowReaper {
+    static final List<ReapedTable> TABLES = List.of(
+            new ReapedTable("refresh_tokens", "jti"),
+            new ReapedTable("otp_codes", "id"),
+            new ReapedTable("user_sessions", "id")
+    );
+
+    private static final String SELECT_DOOMED = """
+            WITH doomed AS (
+                SELECT %2$s FROM %1$s
+                 WHERE expires_at < ?
+                 ORDER BY expires_at, %2$s
+                 LIMIT ?
+                   FOR UPDATE SKIP LOCKED
+            )
+            """;
+    private static final String DELETE_SQL = SELECT_DOOMED + """
+            DELETE FROM %1$s t USING doomed d WHERE t.%2$s = d.%2$s
+            """;
+    private static final String ARCHIVE_SQL = SELECT_DOOMED + """
+            , moved AS (
+                DELETE FROM %1$s t USING doomed d WHERE t.%2$s = d.%2$s RETURNING t.*
+            )
+            INSERT INTO %1$s_archive SELECT * FROM moved
+            """;
+    private static final String CREATE_ARCHIVE_SQL =
+            "CREATE TABLE IF NOT EXISTS %1$s_archive (LIKE %1$s INCLUDING DEFAULTS)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final RetentionProperties properties;
+    private final PartitionMaintenance partitions;
+    private final MeterRegistry registry;
+    private final Timer runTimer;
+
+    public ExpiredRowReaper(JdbcTemplate jdbcTemplate, RetentionProperties properties,
+                            PartitionMaintenance partitions, MeterRegistry registry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.properties = properties;
+        this.partitions = partitions;
+        this.registry = registry;
+        this.runTimer = registry.timer("retention.run");
+    }
+
+    @Scheduled(initialDelayString = "${app.retention.initial-delay:1m}",
+            fixedDelayString = "${app.retention.interval:15m}")
+    public void reap() {
+        runTimer.record(() -> {
+            Instant cutoff = Instant.now().minus(properties.getKeepAfterExpiry());
+            for (ReapedTable table : TABLES) {
+                try {
+                    if (partitions.isPartitioned(table.name())) {
+                        partitions.maintain(table.name(), cutoff);
+                    }
+                    long rows = reap(table, cutoff);
+                    if (rows > 0) log.info("Retention: {} expired rows removed from {}", rows, table.name());
+                } catch (Exception e) {
+                    log.warn("Retention run failed for {}: {}", table.name(), e.getMessage());
+                }
+            }
+        });
+    }
+
+    /**
+     * Reaps one table in batches until nothing older than {@code cutoff} is left (or the
+     * per-run cap is hit). Returns the number of rows removed.
+     */
+    long reap(ReapedTable table, Instant cutoff) {
+        final boolean archive = properties.isArchive();
+        final int batchSize = properties.getBatchSize();
+        final String sql = (archive ? ARCHIVE_SQL : DELETE_SQL).formatted(table.name(), table.key());
+        if (archive) jdbcTemplate.execute(CREATE_ARCHIVE_SQL.formatted(table.name()));
+
+        final Timestamp before = Timestamp.from(cutoff);
+        long total = 0;
+        while (total < properties.getMaxRowsPerRun()) {
+            long started = System.nanoTime();
+            int rows = jdbcTemplate.update(sql, before, batchSize);
+            if (rows == 0) break;
+            total += rows;
+            registry.counter("retention.rows", "table", table.name(), "action", archive ? "archived" : "deleted")
+                    .increment(rows);
+            if (rows < batchSize || !throttle(rows, started)) break;
+        }
+        return total;
+    }
+
+    /**
+     * Sleeps long enough that {@code rows} took at least {@code rows / max-rows-per-second}.
+     * Returns false if the thread was interrupted (shutdown).
+     */
+    private boolean throttle(int rows, long startedNanos) {
+        long budgetMs = rows * 1000L / Math.max(1, properties.getMaxRowsPerSecond());
+        long spentMs = (System.nanoTime() - startedNanos) / 1_000_000;
+        if (budgetMs <= spentMs) return true;
+        try {
+            Thread.sleep(budgetMs - spentMs);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /**
+     * @param name table name (lower case, as created by Hibernate)
+     * @param key  primary key column, used as the keyset tie-breaker after {@code expires_at}
+     */
+    record ReapedTable(String name, String key) {
+    }
+}
@@ -0,0 +1,111 @@
+package my.taxi.security.retention;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+
+/**
+ * Monthly range partitions on {@code expires_at} for tables converted with
+ * {@code db/partitioning/partition_auth_tables.sql}.
+ *
+ * <p>Partitions are named {@code <table>_pYYYY_MM}. Each run creates the current month plus
+ * {@code premake-months} ahead and removes every partition whose upper bound is at or before the
+ * retention cutoff: detach + drop (or detach only when archiving). Both statements run with a short
+ * {@code lock_timeout}; if live traffic holds the parent the attempt is skipped until the next run.</p>
+ *
+ * Created by Avaz Absamatov
+ * Date: 10/18/2026
+ */
+@Slf4j
+@Component
+public class PartitionMaintenance {
+    private static final DateTimeFormatter SUFFIX = DateTimeFormatter.ofPattern("'_p'yyyy_MM");
+    private static final String IS_PARTITIONED_SQL =
+            "SELECT count(*) FROM pg_partitioned_table WHERE partrelid = to_regclass(?)";
+    private static final String CHILDREN_SQL = """
+            SELECT c.relname FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid
+             WHERE i.inhparent = to_regclass(?)
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate tx;
+    private final RetentionProperties properties;
+    private final MeterRegistry registry;
+
+    public PartitionMaintenance(JdbcTemplate jdbcTemplate, PlatformTransactionManager txManager,
+                                RetentionProperties properties, MeterRegistry registry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.tx = new TransactionTemplate(txManager);
+        this.properties = properties;
+        this.registry = registry;
+    }
+
+    public boolean isPartitioned(String table) {
+        Integer n = jdbcTemplate.queryForObject(IS_PARTITIONED_SQL, Integer.class, table);
+        return n != null && n > 0;
+    }
+
+    public void maintain(String table, Instant cutoff) {
+        YearMonth current = YearMonth.now(ZoneOffset.UTC);
+        for (int i = 0; i <= properties.getPartition().getPremakeMonths(); i++) {
+            create(table, current.plusMonths(i));
+        }
+
+        YearMonth firstKept = YearMonth.from(cutoff.atZone(ZoneOffset.UTC));
+        List<String> children = jdbcTemplate.queryForList(CHILDREN_SQL, String.class, table);
+        for (String child : children) {
+            YearMonth month = monthOf(table, child);
+            if (month != null && month.isBefore(firstKept)) remove(table, child);
+        }
+    }
+
+    private void create(String table, YearMonth month) {
+        String child = table + SUFFIX.format(month);
+        try {
+            jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS %s PARTITION OF %s FOR VALUES FROM ('%s') TO ('%s')"
+                    .formatted(child, table, startOf(month), startOf(month.plusMonths(1))));
+        } catch (Exception e) {
+            // typically rows for that month already sit in the DEFAULT partition
+            log.warn("Could not create partition {}: {}", child, e.getMessage());
+        }
+    }
+
+    private void remove(String table, String child) {
+        final boolean archive = properties.isArchive();
+        try {
+            tx.executeWithoutResult(status -> {
+                jdbcTemplate.execute("SET LOCAL lock_timeout = " + properties.getPartition().getLockTimeout().toMillis());
+                jdbcTemplate.execute("ALTER TABLE %s DETACH PARTITION %s".formatted(table, child));
+                if (!archive) jdbcTemplate.execute("DROP TABLE " + child);
+            });
+            registry.counter("retention.partitions", "table", table, "action", archive ? "detached" : "dropped")
+                    .increment();
+            log.info("Retention: partition {} {}", child, archive ? "detached" : "dropped");
+        } catch (Exception e) {
+            log.warn("Could not remove partition {}: {}", child, e.getMessage());
+        }
+    }
+
+    private static YearMonth monthOf(String table, String child) {
+        if (!child.startsWith(table + "_p")) return null;
+        try {
+            return YearMonth.parse(child.substring(table.length()), SUFFIX);
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    private static String startOf(YearMonth month) {
+        return month.atDay(1) + " 00:00:00+00";
+    }
+}
@@ -0,0 +1,53 @@
+package my.taxi.security.retention;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * Created by Avaz Absamatov
+ * Date: 10/18/2026
+ */
+@Getter
+@Setter
+@Configuration
+@ConfigurationProperties(prefix = "app.retention")
+public class RetentionProperties {
+    private boolean enabled = true;
+    /**
+     * Rows are removed once {@code expires_at} is older than this (kept a little for audit).
+     */
+    private Duration keepAfterExpiry = Duration.ofDays(1);
+    /**
+     * Copy reaped rows into {@code <table>_archive} instead of discarding them;
+     * for partitioned tables old partitions are detached instead of dropped.
+     */
+    private boolean archive = false;
+    private int batchSize = 1_000;
+    /**
+     * Throughput cap; the reaper sleeps between batches to stay under it.
+     */
+    private int maxRowsPerSecond = 5_000;
+    /**
+     * Per table per run; whatever is left is picked up by the next run.
+     */
+    private int maxRowsPerRun = 200_000;
+
+    private PartitionProps partition = new PartitionProps();
+
+    @Getter
+    @Setter
+    public static class PartitionProps {
+        /**
+         * Monthly partitions created ahead of time for partitioned tables.
+         */
+        private int premakeMonths = 2;
+        /**
+         * DETACH/DROP gives up after this instead of queueing behind live traffic.
+         */
+        private Duration lockTimeout = Duration.ofSeconds(2);
+    }
+}
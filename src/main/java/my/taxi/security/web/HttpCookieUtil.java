@@ -3,6 +3,7 @@ package my.taxi.security.web;
 import jakarta.servlet.http.Cookie;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
+import my.taxi.configuration.datasource.ReplicaProperties;
 import org.springframework.stereotype.Component;
 
 /**
@@ -13,6 +14,7 @@ import org.springframework.stereotype.Component;
 @RequiredArgsConstructor
 public class HttpCookieUtil {
     private final JwtProperties props;
+    private final ReplicaProperties replica;
 
     public void writeRefreshCookie(HttpServletResponse res, String value, int maxAgeSeconds) {
         Cookie cookie = new Cookie(props.getCookie().getRefreshName(), value);
@@ -33,6 +35,18 @@ public class HttpCookieUtil {
         res.addHeader("Set-Cookie", cookieToString(c, props.getCookie().getSameSite()));
     }
 
+    /**
+     * With a read replica, makes the client's next requests read from the primary for
+     * {@code app.datasource.replica.stick-after-write}; no-op otherwise.
+     */
+    public void markReadYourWrites(HttpServletResponse res) {
+        if (!replica.isEnabled()) return;
+        Cookie c = new Cookie(replica.getStickyCookie(), "1");
+        c.setPath("/");
+        c.setMaxAge((int) replica.getStickAfterWrite().toSeconds());
+        res.addHeader("Set-Cookie", cookieToString(c, props.getCookie().getSameSite()));
+    }
+
     private static String cookieToString(Cookie c, String sameSite) {
         StringBuilder sb = new StringBuilder();
         sb.append(c.getName()).append("=").append(c.getValue()).append("; Path=").append(c.getPath());
@@ -5,6 +5,10 @@ import lombok.Setter;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Configuration;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
 /**
  * Created by Avaz Absamatov
  * Date: 10/1/2025
@@ -17,12 +21,29 @@ public class JwtProperties {
     private String issuer;
     private String audience;
     private String secretBase64;
+    /**
+     * kid used to sign new tokens; defaults to the first entry of {@link #keys}.
+     */
+    private String activeKid;
+    /**
+     * All keys accepted for verification (see {@link my.taxi.security.JwtKeyRing}).
+     */
+    private List<KeyProps> keys = new ArrayList<>();
     private long accessExpMin;
     private short maxSession;
     private long refreshExpDays;
 
     private CookieProps cookie = new CookieProps();
+    private TokenVersionProps tokenVersion = new TokenVersionProps();
+    private ClaimsCacheProps claimsCache = new ClaimsCacheProps();
+    private TouchProps touch = new TouchProps();
 
+    @Getter
+    @Setter
+    public static class KeyProps {
+        private String kid;
+        private String secretBase64;
+    }
 
     @Getter
     @Setter
@@ -30,4 +51,42 @@ public class JwtProperties {
         private String refreshName = "refresh_token";
         private String sameSite = "Strict";
     }
+
+    @Getter
+    @Setter
+    public static class TokenVersionProps {
+        /**
+         * Upper bound for a stale entry if a NOTIFY is lost.
+         */
+        private Duration cacheTtl = Duration.ofSeconds(60);
+        private long cacheMaxSize = 100_000;
+        /**
+         * Postgres LISTEN/NOTIFY channel used to tell other nodes about bumps.
+         */
+        private String notifyChannel = "token_version";
+        private boolean listenEnabled = true;
+    }
+
+    @Getter
+    @Setter
+    public static class ClaimsCacheProps {
+        /**
+         * Verified access tokens kept in {@link my.taxi.security.AccessTokenClaimsCache}.
+         */
+        private long maxSize = 200_000;
+    }
+
+    @Getter
+    @Setter
+    public static class TouchProps {
+        /**
+         * Touches closer than this to the stored lastUsedAt (same User-Agent) are dropped.
+         */
+        private Duration minInterval = Duration.ofMinutes(5);
+        private int batchSize = 500;
+        /**
+         * Hard cap on buffered touches; beyond it new touches are dropped until the next flush.
+         */
+        private int maxPending = 100_000;
+    }
 }
@@ -1,8 +1,12 @@
 package my.taxi.security.web;
 
+import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
 import my.taxi.entities.user.User;
+import my.taxi.repository.RefreshTokenRepository;
 import my.taxi.repository.UserRepository;
+import my.taxi.security.TokenVersionCache;
+import my.taxi.security.TokenVersionNotifier;
 import org.springframework.stereotype.Component;
 
 /**
@@ -13,6 +17,10 @@ import org.springframework.stereotype.Component;
 @RequiredArgsConstructor
 public class UserProfileAdapter implements UserProfilePort{
     private final UserRepository repo;
+    private final RefreshTokenRepository refreshTokens;
+    private final TokenVersionCache tokenVersions;
+    private final TokenVersionNotifier notifier;
+
     @Override
     public Long findUserIdByPhone(String phone) {
         return repo.findByPhone(phone)
@@ -22,8 +30,17 @@ public class UserProfileAdapter implements UserProfilePort{
 
     @Override
     public long currentTokenVersion(Long userId) {
-        return repo.findById(userId)
-                .map(User::getTokenVersion)
-                .orElse(0L);
+        return tokenVersions.get(userId);
+    }
+
+    @Override
+    @Transactional
+    public void bumpTokenVersion(Long userId) {
+        repo.incrementTokenVersion(userId);
+        // Every existing refresh row carries the old version; drop them in the same transaction
+        refreshTokens.revokeAllActiveByUser(userId);
+        // Delivered on commit to every node (including this one)
+        notifier.publish(userId);
+        tokenVersions.invalidate(userId);
     }
 }
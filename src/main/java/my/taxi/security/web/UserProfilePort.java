@@ -7,4 +7,10 @@ package my.taxi.security.web;
 public interface UserProfilePort {
     Long findUserIdByPhone(String phone);
     long currentTokenVersion(Long userId);
+
+    /**
+     * Increments the user's tokenVersion, invalidating every issued access/refresh token on all nodes
+     * and revoking the user's ACTIVE refresh rows.
+     */
+    void bumpTokenVersion(Long userId);
 }
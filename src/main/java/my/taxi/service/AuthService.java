@@ -13,5 +13,9 @@ import my.taxi.payload.request.LoginRequest;
 public interface AuthService {
     Response<String> handleLogin(Request<LoginRequest> dto, HttpServletRequest request, HttpServletResponse res);
 
+    Response<String> loginByPhone(String phone, HttpServletRequest request, HttpServletResponse res);
+
     Response<String> handleRefreshToken(HttpServletRequest request, HttpServletResponse res);
+
+    Response<String> logoutAll(HttpServletResponse res);
 }
@@ -0,0 +1,22 @@
+package my.taxi.service;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import my.taxi.base.Request;
+import my.taxi.base.Response;
+import my.taxi.payload.request.OtpSendRequest;
+import my.taxi.payload.request.OtpVerifyRequest;
+import my.taxi.payload.response.OtpSendResponse;
+
+/**
+ * Created by Avaz Absamatov
+ * Date: 10/18/2026
+ */
+public interface OtpService {
+    Response<OtpSendResponse> send(Request<OtpSendRequest> dto, HttpServletRequest request, HttpServletResponse res);
+
+    /**
+     * Checks the code and, on success, logs the phone in (access token + refresh cookie).
+     */
+    Response<String> verify(Request<OtpVerifyRequest> dto, HttpServletRequest request, HttpServletResponse res);
+}
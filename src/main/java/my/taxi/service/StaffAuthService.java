@@ -0,0 +1,15 @@
+package my.taxi.service;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import my.taxi.base.Request;
+import my.taxi.base.Response;
+import my.taxi.payload.request.LoginRequest;
+
+/**
+ * Created by Avaz Absamatov
+ * Date: 10/18/2026
+ */
+public interface StaffAuthService {
+    Response<String> login(Request<LoginRequest> dto, HttpServletRequest request, HttpServletResponse res);
+}
@@ -1,6 +1,7 @@
 package my.taxi.service.impl;
 
 import io.jsonwebtoken.Claims;
+import io.micrometer.core.instrument.Timer;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import jakarta.transaction.Transactional;
@@ -10,19 +11,22 @@ import my.taxi.base.Response;
 import my.taxi.entities.auth.RefreshToken;
 import my.taxi.entities.auth.enums.TokenStatus;
 import my.taxi.entities.user.User;
-import my.taxi.entities.user.enums.Role;
 import my.taxi.payload.request.LoginRequest;
 import my.taxi.repository.RefreshTokenRepository;
 import my.taxi.repository.UserRepository;
+import my.taxi.repository.projection.LoginSnapshot;
+import my.taxi.security.AuthMetrics;
 import my.taxi.security.DeviceFingerPrService;
 import my.taxi.security.JWTService;
+import my.taxi.security.JwtAuthentication;
+import my.taxi.security.RefreshTokenTouchCoalescer;
+import my.taxi.security.RoleAuthorities;
 import my.taxi.security.web.CookieHeader;
 import my.taxi.security.web.HttpCookieUtil;
 import my.taxi.security.web.JwtProperties;
 import my.taxi.security.web.UserProfilePort;
 import my.taxi.service.AuthService;
 import my.taxi.utils.HashUtils;
-import org.springframework.data.domain.PageRequest;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 
@@ -31,7 +35,6 @@ import java.time.Instant;
 import java.util.Optional;
 import java.util.Set;
 import java.util.UUID;
-import java.util.stream.Collectors;
 
 /**
  * Authentication/Token service (non-rotating refresh model).
@@ -42,6 +45,7 @@ import java.util.stream.Collectors;
  *   <li><b>Refresh:</b> validate cookie refresh JWT, enforce device binding & tokenVersion,
  *       update audit fields (touch), and return a new access JWT <i>without</i> rotating refresh.</li>
  *   <li><b>Session cap:</b> optionally revoke the oldest ACTIVE session when max sessions is reached.</li>
+ *   <li><b>Logout all:</b> bump the user's tokenVersion and revoke every refresh token.</li>
  * </ul>
  *
  * <p>Security model:</p>
@@ -55,7 +59,7 @@ import java.util.stream.Collectors;
  * <p>Notes:</p>
  * <ul>
  *   <li>Use transactional boundaries for login/refresh flows to keep state consistent.</li>
- *   <li>Consider throttling audit updates (touch) to reduce write load.</li>
+ *   <li>Audit updates (touch) are throttled and written behind by {@link RefreshTokenTouchCoalescer}.</li>
  * </ul>
  */
 
@@ -79,6 +83,8 @@ public class AuthServiceImpl implements AuthService {
     private final HttpCookieUtil cookies;
     private final UserRepository userRepository;
     private final JWTService jwt;
+    private final RefreshTokenTouchCoalescer touches;
+    private final AuthMetrics metrics;
 
 
     /**
@@ -88,11 +94,13 @@ public class AuthServiceImpl implements AuthService {
      *
      * <p>Behavior:</p>
      * <ul>
-     *   <li>Find user by phone; fail fast if not found.</li>
+     *   <li>Load the {@link LoginSnapshot} by phone (single query); fail fast if not found.</li>
      *   <li>Compute device fingerprint and look up an ACTIVE refresh token bound to this device.</li>
      *   <li>If present and not expired → reuse it (no rotation on login).</li>
-     *   <li>Otherwise → (optionally) revoke the oldest ACTIVE session, then create a brand-new RT
-     *       with a new familyId for this device.</li>
+     *   <li>Otherwise → take the user's session lock, revoke the user's expired ACTIVE sessions,
+     *       re-check the device and the ACTIVE count,
+     *       (optionally) revoke the oldest ACTIVE session, then create a brand-new RT with a new
+     *       familyId for this device.</li>
      *   <li>Always issue a fresh access token and set the refresh cookie.</li>
      * </ul>
      *
@@ -106,50 +114,83 @@ public class AuthServiceImpl implements AuthService {
     @Override
     @Transactional
     public Response<String> handleLogin(Request<LoginRequest> dto, HttpServletRequest request, HttpServletResponse res) {
-        final LoginRequest params = dto.getParams();
-        Optional<User> optUser = userRepository.findByPhone(params.getPhone());
-        if (optUser.isEmpty()) return Response.fail(404, "User not found", HttpStatus.NOT_FOUND);
-
-        User user = optUser.get();
-        Instant now = Instant.now();
-        // Bind the session to a device-scoped fingerprint (userId-scoped)
-        String fp = deviceFingerPrService.userScopedFingerprint(request, user.getId());
-
-        // Find an existing ACTIVE refresh token for this user+device
-        Optional<RefreshToken> optActive = refreshTokenRepository.findActiveByUserAndDevice(user.getId(), fp);
-
-        // Roles for access token payload
-        Set<String> roles = getRoles(user);
-
-        // Access token always (short-lived)
-        long tokenVersion = userProfilePort.currentTokenVersion(user.getId());
-        String access = jwt.issueAccess(user.getId(), user.getUsername(), roles, tokenVersion);
-
-        String rawRefresh;
-        if (optActive.isPresent() && !optActive.get().isExpired()) {
-            // Reuse existing ACTIVE refresh token (no rotation on login)
-            RefreshToken rt = optActive.get();
-            rt.touch();
-            rt.setUserAgent(request.getHeader(HDR_USER_AGENT));
-            refreshTokenRepository.save(rt);
-
-            // Re-issue the same logical refresh JWT (same jti/family)
-            rawRefresh = jwt.issueRefresh(rt.getUserId(), rt.getFamilyId(), rt.getJti(), tokenVersion);
-        } else {
-            // Enforce max concurrent device sessions if configured
-            long activeCount = refreshTokenRepository.countActiveByUser(user.getId());
-
-            if (activeCount >= props.getMaxSession())
-                revokeOldestActiveRefreshToken(user);
-
-            // Create a brand-new refresh token for this device (new family for the device)
-            String jti = UUID.randomUUID().toString();
-            final String familyId = UUID.randomUUID().toString();
-            rawRefresh = persistAndIssueRefresh(request, jti, familyId, user.getId(), tokenVersion, fp, now);
+        return loginByPhone(dto.getParams().getPhone(), request, res);
+    }
+
+    /**
+     * Shared session-issuing path for every login flavour (phone login, OTP verify): same device
+     * binding, session cap and cookie handling as {@link #handleLogin}.
+     */
+    @Override
+    @Transactional
+    public Response<String> loginByPhone(String phone, HttpServletRequest request, HttpServletResponse res) {
+        Timer.Sample sample = metrics.start();
+        String outcome = AuthMetrics.OUTCOME_ERROR;
+        try {
+            // One round-trip: user, roles, tokenVersion and all ACTIVE refresh tokens (oldest first)
+            Optional<LoginSnapshot> optSnapshot = LoginSnapshot.from(userRepository.findLoginRows(phone));
+            if (optSnapshot.isEmpty()) {
+                outcome = AuthMetrics.LOGIN_USER_NOT_FOUND;
+                return Response.fail(404, "User not found", HttpStatus.NOT_FOUND);
+            }
+
+            LoginSnapshot user = optSnapshot.get();
+            Instant now = Instant.now();
+            // Bind the session to a device-scoped fingerprint (userId-scoped)
+            String fp = deviceFingerPrService.userScopedFingerprint(request, user.userId());
+
+            // Find an existing unexpired ACTIVE refresh token for this user+device
+            Optional<LoginSnapshot.ActiveSession> optActive = user.sessionFor(fp);
+
+            // Access token always (short-lived)
+            long tokenVersion = user.tokenVersion();
+            String access = jwt.issueAccess(user.userId(), user.phone(), user.roles(), tokenVersion);
+
+            String rawRefresh;
+            if (optActive.isPresent()) {
+                // Reuse existing ACTIVE refresh token (no rotation on login)
+                LoginSnapshot.ActiveSession rt = optActive.get();
+                touches.touch(rt.jti(), rt.lastUsedAt(), rt.userAgent(), request.getHeader(HDR_USER_AGENT));
+
+                // Re-issue the same logical refresh JWT (same jti/family)
+                rawRefresh = jwt.issueRefresh(user.userId(), rt.familyId(), rt.jti(), tokenVersion);
+                outcome = AuthMetrics.LOGIN_REUSED_SESSION;
+            } else {
+                // Concurrent logins of this user wait here until this transaction commits, so the
+                // re-reads below see every session they created and the cap cannot be overshot
+                refreshTokenRepository.lockSessionsOf(user.userId());
+                // Expired sessions still ACTIVE would count toward the cap and leave this device
+                // with two ACTIVE rows once the new one is inserted
+                refreshTokenRepository.revokeExpiredByUser(user.userId(), now);
+
+                Optional<RefreshToken> raced = refreshTokenRepository.findActiveByUserAndDevice(user.userId(), fp);
+                if (raced.isPresent()) {
+                    // A concurrent login from this device created the session meanwhile: reuse it
+                    RefreshToken rt = raced.get();
+                    rawRefresh = jwt.issueRefresh(user.userId(), rt.getFamilyId(), rt.getJti(), tokenVersion);
+                    outcome = AuthMetrics.LOGIN_REUSED_SESSION;
+                } else {
+                    // Enforce max concurrent device sessions if configured
+                    long activeCount = refreshTokenRepository.countActiveByUser(user.userId());
+
+                    if (activeCount >= props.getMaxSession())
+                        revokeOldestActiveRefreshTokens(user.userId(), activeCount);
+
+                    // Create a brand-new refresh token for this device (new family for the device)
+                    String jti = UUID.randomUUID().toString();
+                    final String familyId = UUID.randomUUID().toString();
+                    rawRefresh = persistAndIssueRefresh(request, jti, familyId, user.userId(), tokenVersion, fp, now);
+                    outcome = AuthMetrics.LOGIN_NEW_SESSION;
+                }
+            }
+            // Set/refresh the cookie holding the refresh token
+            cookies.writeRefreshCookie(res, rawRefresh, refreshCookieMaxAgeSeconds());
+            // Reads right after login must see its writes even if the replica lags behind
+            cookies.markReadYourWrites(res);
+            return Response.ok(access);
+        } finally {
+            metrics.stopLogin(sample, outcome);
         }
-        // Set/refresh the cookie holding the refresh token
-        cookies.writeRefreshCookie(res, rawRefresh, refreshCookieMaxAgeSeconds());
-        return Response.ok(access);
     }
 
     /**
@@ -168,72 +209,98 @@ public class AuthServiceImpl implements AuthService {
      *
      * <p>On success:</p>
      * <ul>
-     *   <li>Touch the refresh token metadata (lastUsedAt / userAgent) and persist.</li>
+     *   <li>Touch the refresh token metadata (lastUsedAt); persisted write-behind and throttled.</li>
      *   <li>Issue a fresh access token and optionally refresh the cookie Max-Age.</li>
      * </ul>
      */
     @Override
     public Response<String> handleRefreshToken(HttpServletRequest request, HttpServletResponse response) {
-        String cookieName = props.getCookie().getRefreshName();
-        String refreshToken = CookieHeader.read(request, cookieName);
-        if (refreshToken == null || refreshToken.isBlank())
-            return Response.fail(404, "Invalid refreshToken", HttpStatus.NOT_FOUND);
-
-        Claims claims;
+        Timer.Sample sample = metrics.start();
+        String outcome = AuthMetrics.OUTCOME_ERROR;
         try {
-            claims = jwt.verify(refreshToken);
-        } catch (Exception e) {
-            return Response.fail(401, MSG_UNAUTHORIZED, HttpStatus.UNAUTHORIZED);
+            String cookieName = props.getCookie().getRefreshName();
+            String refreshToken = CookieHeader.read(request, cookieName);
+            if (refreshToken == null || refreshToken.isBlank()) {
+                outcome = AuthMetrics.REFRESH_MISSING_COOKIE;
+                return Response.fail(404, "Invalid refreshToken", HttpStatus.NOT_FOUND);
+            }
+
+            Claims claims;
+            try {
+                claims = jwt.verify(refreshToken);
+            } catch (Exception e) {
+                outcome = AuthMetrics.REFRESH_INVALID_JWT;
+                return Response.fail(401, MSG_UNAUTHORIZED, HttpStatus.UNAUTHORIZED);
+            }
+
+            if (!TYP_REFRESH.equals(claims.get(CLAIM_TYP, String.class))) {
+                outcome = AuthMetrics.REFRESH_WRONG_TYPE;
+                return Response.fail(401, MSG_UNAUTHORIZED, HttpStatus.UNAUTHORIZED);
+            }
+
+            String jti = claims.getId();
+            Long userId = claims.get(CLAIM_UID, Number.class).longValue();
+            String familyId = claims.get(CLAIM_FID, String.class);
+            long verFromToken = claims.get(CLAIM_VER, Number.class).longValue();
+
+            // Global invalidation via tokenVersion mismatch
+            final long currentVersion = userProfilePort.currentTokenVersion(userId);
+            if (verFromToken != currentVersion) {
+                outcome = AuthMetrics.REFRESH_VERSION_MISMATCH;
+                return revokeFamilyAndClearCookie(response, familyId);
+            }
+
+            // Look up the refresh token row by jti (on the primary)
+            RefreshToken currentRT = refreshTokenRepository.findByJti(jti).orElse(null);
+            if (currentRT == null || currentRT.getStatus() != TokenStatus.ACTIVE || currentRT.isExpired()) {
+                outcome = currentRT == null ? AuthMetrics.REFRESH_MISSING_ROW : AuthMetrics.REFRESH_INACTIVE_ROW;
+                return revokeFamilyAndClearCookie(response, familyId);
+            }
+
+            // Enforce device binding (fingerprint must match)
+            String deviceFp = deviceFingerPrService.userScopedFingerprint(request, userId);
+            if (!deviceFp.equals(currentRT.getDeviceFp())) {
+                outcome = AuthMetrics.REFRESH_FINGERPRINT_MISMATCH;
+                return revokeFamilyAndClearCookie(response, familyId);
+            }
+
+            // Non-rotating: only touch audit fields (coalesced, no write on the request path)
+            touches.touch(currentRT, null);
+
+            // Issue a fresh access token
+            final Optional<User> optUser = userRepository.findById(userId);
+            if (optUser.isEmpty()) {
+                outcome = AuthMetrics.REFRESH_USER_NOT_FOUND;
+                return revokeFamilyAndClearCookie(response, familyId);
+            }
+
+            final User user = optUser.get();
+            Set<String> roles = RoleAuthorities.names(user.getRoles());
+            final String newAccess = jwt.issueAccess(userId, user.getUsername(), roles, verFromToken);
+
+            // Optionally renew the cookie Max-Age with the same refresh token
+            cookies.writeRefreshCookie(response, refreshToken, refreshCookieMaxAgeSeconds());
+            outcome = AuthMetrics.OUTCOME_SUCCESS;
+            return Response.ok(newAccess);
+        } finally {
+            metrics.stopRefresh(sample, outcome);
         }
-
-        if (!TYP_REFRESH.equals(claims.get(CLAIM_TYP, String.class)))
-            return Response.fail(401, MSG_UNAUTHORIZED, HttpStatus.UNAUTHORIZED);
-
-        String jti = claims.getId();
-        Long userId = claims.get(CLAIM_UID, Number.class).longValue();
-        String familyId = claims.get(CLAIM_FID, String.class);
-        long verFromToken = claims.get(CLAIM_VER, Number.class).longValue();
-
-        // Global invalidation via tokenVersion mismatch
-        final long currentVersion = userProfilePort.currentTokenVersion(userId);
-        if (verFromToken != currentVersion)
-            return revokeFamilyAndClearCookie(response, familyId);
-
-        // Look up the refresh token row by jti
-        RefreshToken currentRT = refreshTokenRepository.findByJti(jti).orElse(null);
-        if (currentRT == null || currentRT.getStatus() != TokenStatus.ACTIVE || currentRT.isExpired())
-            return revokeFamilyAndClearCookie(response, familyId);
-
-        // Enforce device binding (fingerprint must match)
-        String deviceFp = deviceFingerPrService.userScopedFingerprint(request, userId);
-        if (!deviceFp.equals(currentRT.getDeviceFp()))
-            return revokeFamilyAndClearCookie(response, familyId);
-
-        // Non-rotating: only touch audit fields (you can throttle to reduce writes)
-        currentRT.touch(); // updates lastUsedAt = now
-        refreshTokenRepository.save(currentRT);
-
-        // Issue a fresh access token
-        final Optional<User> optUser = userRepository.findById(userId);
-        if (optUser.isEmpty())
-            return revokeFamilyAndClearCookie(response, familyId);
-
-        final User user = optUser.get();
-        Set<String> roles = getRoles(user);
-        final String newAccess = jwt.issueAccess(userId, user.getUsername(), roles, verFromToken);
-
-        // Optionally renew the cookie Max-Age with the same refresh token
-        cookies.writeRefreshCookie(response, refreshToken, refreshCookieMaxAgeSeconds());
-        return Response.ok(newAccess);
     }
 
     /**
-     * Get user roles
+     * Logs the authenticated user out of every device: bumps the user's tokenVersion, so access
+     * tokens already issued fail the filter's {@code ver} check on every node, revokes all ACTIVE
+     * refresh tokens and clears this client's refresh cookie.
      */
-    private static Set<String> getRoles(User user) {
-        return user.getRoles().stream()
-                .map(Role::name)
-                .collect(Collectors.toSet());
+    @Override
+    @Transactional
+    public Response<String> logoutAll(HttpServletResponse res) {
+        Optional<JwtAuthentication> auth = JwtAuthentication.current();
+        if (auth.isEmpty()) return Response.fail(401, MSG_UNAUTHORIZED, HttpStatus.UNAUTHORIZED);
+
+        userProfilePort.bumpTokenVersion(auth.get().getUserId());
+        cookies.clearRefreshCookie(res);
+        return Response.ok("Logged out from all devices");
     }
 
     /**
@@ -336,30 +403,25 @@ public class AuthServiceImpl implements AuthService {
     }
 
     /**
-     * Revokes the oldest ACTIVE refresh token for the given user, enforcing a "max sessions"
-     * policy without logging the user out of all devices.
+     * Revokes the oldest ACTIVE refresh tokens for the given user so that, after the new token is
+     * created, the user stays within the "max sessions" policy without logging out of all devices.
      *
-     * <p>We fetch one oldest ACTIVE token (by created/lastUsed ordering in the repository query),
-     * flip its status to {@code REVOKED}, and persist. This keeps DB churn minimal and preserves
-     * other active sessions.</p>
+     * <p>Done as a single set-based UPDATE ordered by {@code coalesce(lastUsedAt, createdAt)}: one
+     * round-trip no matter how many rows are evicted, and other active sessions are preserved.</p>
      *
      * <h4>Transactional/Safety notes</h4>
      * <ul>
-     *   <li>Call within a transactional boundary to avoid race conditions if multiple logins
-     *       happen concurrently.</li>
-     *   <li>Consider doing this via a single UPDATE query in the repository for fewer round-trips.</li>
+     *   <li>Call with the user's session lock held ({@link RefreshTokenRepository#lockSessionsOf(Long)})
+     *       and a count read after taking it; otherwise concurrent logins overshoot the cap.</li>
      * </ul>
      *
-     * @param user the subject whose oldest active session will be revoked
+     * @param userId      the subject whose oldest active sessions will be revoked
+     * @param activeCount number of ACTIVE sessions the user currently has
+     * @return number of sessions revoked
      */
-    private void revokeOldestActiveRefreshToken(User user) {
-        refreshTokenRepository.findActiveOldestFirst(user.getId(), PageRequest.of(0, 1))
-                .stream()
-                .findFirst()
-                .ifPresent(old -> {
-                    old.setStatus(TokenStatus.REVOKED);
-                    refreshTokenRepository.save(old);
-                });
+    private int revokeOldestActiveRefreshTokens(Long userId, long activeCount) {
+        int excess = Math.toIntExact(activeCount - props.getMaxSession() + 1);
+        return refreshTokenRepository.revokeOldestActive(userId, excess);
     }
 
 
@@ -389,14 +451,12 @@ public class AuthServiceImpl implements AuthService {
      * will be unable to obtain new access tokens using those refresh tokens.</p>
      *
      * @param familyId family identifier whose tokens should be revoked
-     * @implNote - Prefer executing within a transactional boundary.
-     * - Consider a bulk UPDATE to reduce round-trips (see alternative below).
+     * @return number of tokens revoked
+     * @implNote - Single bulk UPDATE, no rows are loaded into the persistence context.
      * - Method is intentionally idempotent: calling it multiple times is safe.
      */
-    private void revokeFamily(String familyId) {
-        var list = refreshTokenRepository.findByFamilyId(familyId);
-        list.forEach(r -> r.setStatus(TokenStatus.REVOKED));
-        refreshTokenRepository.saveAll(list);
+    private int revokeFamily(String familyId) {
+        return refreshTokenRepository.revokeFamily(familyId);
     }
 
 }
@@ -0,0 +1,401 @@
+package my.taxi.service.impl;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import my.taxi.base.Request;
+import my.taxi.base.Response;
+import my.taxi.entities.auth.OtpCode;
+import my.taxi.entities.auth.enums.BrutScope;
+import my.taxi.entities.auth.enums.OtpStatus;
+import my.taxi.payload.request.OtpSendRequest;
+import my.taxi.payload.request.OtpVerifyRequest;
+import my.taxi.payload.response.OtpSendResponse;
+import my.taxi.repository.OtpCodeRepository;
+import my.taxi.repository.UserRepository;
+import my.taxi.security.AuthMetrics;
+import my.taxi.security.bruteforce.BruteForceGuard;
+import my.taxi.security.otp.OtpProperties;
+import my.taxi.security.otp.SmsSender;
+import my.taxi.service.AuthService;
+import my.taxi.service.OtpService;
+import my.taxi.utils.HashUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+
+import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Phone OTP: send a code by SMS, verify it, log the phone in.
+ *
+ * <p>Hot-path state (cooldown, send counter, attempts, code hash) lives in memory per phone and is
+ * guarded by a striped {@link ReentrantLock} (not {@code synchronized}, so virtual threads do not
+ * pin on it). The database is written only on state transitions:</p>
+ * <ul>
+ *   <li>first send of a window → INSERT;</li>
+ *   <li>resend → UPDATE of the same row (new code, attempts reset), conditional on its send count;</li>
+ *   <li>PENDING → VERIFIED / EXPIRED / BLOCKED → UPDATE of status.</li>
+ * </ul>
+ * Cooldown rejects and wrong codes below the limit never touch the database.
+ *
+ * <p>The window's row is the source of truth across restarts and nodes: on an in-memory miss the
+ * latest row of the current window is loaded back. Every transition is conditional on the row still
+ * holding the status and code this node knows, and a wrong code re-reads the row before it is
+ * counted; when another node has moved the row on, the state is reloaded and the request is answered
+ * from the row, so a code is accepted at most once. Attempt counters are per node between
+ * transitions, so with N nodes a code can see at most N × {@code max-attempts} wrong guesses.</p>
+ *
+ * <p>Wrong codes of known users are also counted by {@link BruteForceGuard} ({@link BrutScope#OTP_SMS}),
+ * which catches guessing spread over several resends.</p>
+ *
+ * <p>Only a salted HMAC of the code is kept, in memory and in {@code otp_codes.code_hash}.</p>
+ *
+ * Created by Avaz Absamatov
+ * Date: 10/18/2026
+ */
+@Slf4j
+@Service
+public class OtpServiceImpl implements OtpService {
+    private static final String HDR_USER_AGENT = "User-Agent";
+    private static final String HDR_DEVICE_ID = "X-Device-Id";
+    private static final int SALT_BYTES = 16;
+    private static final int USER_AGENT_MAX = 512;
+    /**
+     * Loads of a phone's state per request when other nodes keep changing its row.
+     */
+    private static final int MAX_READS = 3;
+    private static final StaleState STALE = new StaleState();
+
+    private final OtpCodeRepository otpCodeRepository;
+    private final UserRepository userRepository;
+    private final AuthService authService;
+    private final BruteForceGuard bruteForceGuard;
+    private final SmsSender smsSender;
+    private final OtpProperties props;
+    private final AuthMetrics metrics;
+    private final SecureRandom random = new SecureRandom();
+    private final Cache<String, OtpState> states;
+    private final ReentrantLock[] locks;
+    private final int codeBound;
+
+    public OtpServiceImpl(OtpCodeRepository otpCodeRepository,
+                          UserRepository userRepository,
+                          AuthService authService,
+                          BruteForceGuard bruteForceGuard,
+                          SmsSender smsSender,
+                          OtpProperties props,
+                          AuthMetrics metrics) {
+        this.otpCodeRepository = otpCodeRepository;
+        this.userRepository = userRepository;
+        this.authService = authService;
+        this.bruteForceGuard = bruteForceGuard;
+        this.smsSender = smsSender;
+        this.props = props;
+        this.metrics = metrics;
+        this.states = Caffeine.newBuilder()
+                .expireAfterWrite(props.getWindow())
+                .maximumSize(props.getMaxTrackedPhones())
+                .build();
+        // power of two so the stripe is a mask, not a modulo
+        this.locks = new ReentrantLock[Integer.highestOneBit(Math.max(1, props.getLockStripes() - 1)) << 1];
+        for (int i = 0; i < locks.length; i++) locks[i] = new ReentrantLock();
+        this.codeBound = (int) Math.pow(10, props.getCodeLength());
+    }
+
+    @Override
+    public Response<OtpSendResponse> send(Request<OtpSendRequest> dto, HttpServletRequest request, HttpServletResponse res) {
+        Timer.Sample sample = metrics.start();
+        String outcome = AuthMetrics.OUTCOME_ERROR;
+        try {
+            final String phone = dto.getParams().getPhone().trim();
+            final Instant now = Instant.now();
+            final String code = newCode();
+            final String salt = newSalt();
+            final String hash = hash(code, salt);
+
+            ReentrantLock lock = lockFor(phone);
+            lock.lock();
+            try {
+                for (int reads = 1; ; reads++) {
+                    try {
+                        OtpState s = current(phone, now);
+                        if (s != null) {
+                            if (s.status == OtpStatus.BLOCKED) {
+                                outcome = AuthMetrics.OTP_BLOCKED;
+                                return tooManyRequests(res, s.windowEnd(props.getWindow()), now);
+                            }
+                            Instant nextSend = s.lastSentAt.plus(props.getResendCooldown());
+                            if (now.isBefore(nextSend)) {
+                                outcome = AuthMetrics.OTP_COOLDOWN;
+                                return tooManyRequests(res, nextSend, now);
+                            }
+                            if (s.sends >= props.getMaxSends()) {
+                                block(s);
+                                outcome = AuthMetrics.OTP_BLOCKED;
+                                return tooManyRequests(res, s.windowEnd(props.getWindow()), now);
+                            }
+                            reissue(s, hash, salt, now);
+                        } else {
+                            states.put(phone, insert(phone, hash, salt, now, request));
+                        }
+                        break;
+                    } catch (StaleState e) {
+                        if (reads == MAX_READS) return conflict();
+                    }
+                }
+            } finally {
+                lock.unlock();
+            }
+
+            smsSender.send(phone, "my-taxi code: " + code);
+            outcome = AuthMetrics.OTP_SENT;
+            return Response.ok(new OtpSendResponse(props.getTtl().toSeconds(), props.getResendCooldown().toSeconds()));
+        } finally {
+            metrics.stopOtpSend(sample, outcome);
+        }
+    }
+
+    @Override
+    public Response<String> verify(Request<OtpVerifyRequest> dto, HttpServletRequest request, HttpServletResponse res) {
+        Timer.Sample sample = metrics.start();
+        String outcome = AuthMetrics.OUTCOME_ERROR;
+        try {
+            final OtpVerifyRequest params = dto.getParams();
+            final String phone = params.getPhone().trim();
+            final Instant now = Instant.now();
+
+            ReentrantLock lock = lockFor(phone);
+            lock.lock();
+            try {
+                for (int reads = 1; ; reads++) {
+                    try {
+                        OtpState s = current(phone, now);
+                        if (s == null || s.status == OtpStatus.VERIFIED || s.status == OtpStatus.EXPIRED) {
+                            outcome = AuthMetrics.OTP_NOT_FOUND;
+                            return Response.fail(400, "Code not found", HttpStatus.BAD_REQUEST);
+                        }
+                        if (s.status == OtpStatus.BLOCKED) {
+                            outcome = AuthMetrics.OTP_BLOCKED;
+                            return tooManyRequests(res, s.windowEnd(props.getWindow()), now);
+                        }
+                        if (!now.isBefore(s.expiresAt)) {
+                            transition(s, OtpStatus.EXPIRED);
+                            outcome = AuthMetrics.OTP_EXPIRED;
+                            return Response.fail(400, "Code expired", HttpStatus.BAD_REQUEST);
+                        }
+                        Duration userLock = s.userId == null ? Duration.ZERO : bruteForceGuard.lockedFor(s.userId, BrutScope.OTP_SMS);
+                        if (!userLock.isZero()) {
+                            outcome = AuthMetrics.OTP_BLOCKED;
+                            return tooManyRequests(res, now.plus(userLock), now);
+                        }
+                        if (!matches(params.getCode().trim(), s)) {
+                            // the code may have been reissued by another node
+                            checkCurrent(s);
+                            s.attempts++;
+                            if (s.attempts >= props.getMaxAttempts()) block(s);
+                            if (s.userId != null) {
+                                bruteForceGuard.registerFailure(s.userId, BrutScope.OTP_SMS,
+                                        request.getRemoteAddr(), request.getHeader(HDR_USER_AGENT));
+                            }
+                            outcome = AuthMetrics.OTP_WRONG_CODE;
+                            return Response.fail(400, "Invalid code", HttpStatus.BAD_REQUEST);
+                        }
+                        transition(s, OtpStatus.VERIFIED);
+                        if (s.userId != null) bruteForceGuard.registerSuccess(s.userId, BrutScope.OTP_SMS);
+                        break;
+                    } catch (StaleState e) {
+                        if (reads == MAX_READS) return conflict();
+                    }
+                }
+            } finally {
+                lock.unlock();
+            }
+
+            outcome = AuthMetrics.OUTCOME_SUCCESS;
+            return authService.loginByPhone(phone, request, res);
+        } finally {
+            metrics.stopOtpVerify(sample, outcome);
+        }
+    }
+
+    /**
+     * State of the phone's current window, from memory or (on a miss) from its latest row.
+     * Caller holds the phone's lock.
+     */
+    private OtpState current(String phone, Instant now) {
+        OtpState s = states.getIfPresent(phone);
+        if (s == null) {
+            s = otpCodeRepository.findFirstByPhoneAndCreatedAtAfterOrderByCreatedAtDesc(phone, now.minus(props.getWindow()))
+                    .map(row -> OtpState.of(row, userRepository.findIdByPhone(phone).orElse(null)))
+                    .orElse(null);
+            if (s == null) return null;
+            states.put(phone, s);
+        }
+        if (!now.isBefore(s.windowEnd(props.getWindow()))) {
+            states.invalidate(phone);
+            return null;
+        }
+        return s;
+    }
+
+    private OtpState insert(String phone, String hash, String salt, Instant now, HttpServletRequest request) {
+        OtpCode row = new OtpCode();
+        row.setPhone(phone);
+        row.setCodeHash(hash);
+        row.setSalt(salt);
+        row.setExpiresAt(now.plus(props.getTtl()));
+        row.setMaxAttempts(props.getMaxAttempts());
+        row.setLastSentAt(now);
+        row.setStatus(OtpStatus.PENDING);
+        row.setIp(request.getRemoteAddr());
+        row.setUserAgent(truncate(request.getHeader(HDR_USER_AGENT)));
+        row.setDeviceId(request.getHeader(HDR_DEVICE_ID));
+        row.setCreatedAt(now);
+        return OtpState.of(otpCodeRepository.save(row), userRepository.findIdByPhone(phone).orElse(null));
+    }
+
+    /**
+     * Conditional on the row still counting this state's sends, so cooldown and {@code max-sends}
+     * hold across nodes; otherwise the state is reloaded and the send re-checked against the row.
+     */
+    private void reissue(OtpState s, String hash, String salt, Instant now) {
+        Instant expiresAt = now.plus(props.getTtl());
+        if (otpCodeRepository.reissue(s.id, (short) (s.sends - 1), hash, salt, expiresAt, now) == 0) throw stale(s);
+        s.codeHash = hash;
+        s.salt = salt;
+        s.expiresAt = expiresAt;
+        s.lastSentAt = now;
+        s.sends++;
+        s.attempts = 0;
+        s.status = OtpStatus.PENDING;
+    }
+
+    private void block(OtpState s) {
+        transition(s, OtpStatus.BLOCKED);
+        log.info("OTP {} blocked until {}", s.id, s.windowEnd(props.getWindow()));
+    }
+
+    /**
+     * Conditional on the row still holding this state's status and code; otherwise another node
+     * got there first and the state is dropped, to be reloaded from the row.
+     */
+    private void transition(OtpState s, OtpStatus status) {
+        if (otpCodeRepository.updateStatus(s.id, s.status, s.codeHash, status, s.attempts) == 0) throw stale(s);
+        s.status = status;
+    }
+
+    /**
+     * Re-reads the row before a wrong code is counted, so a node holding a superseded code does not
+     * reject the current one.
+     */
+    private void checkCurrent(OtpState s) {
+        OtpCode row = otpCodeRepository.findCurrentById(s.id).orElse(null);
+        if (row == null || row.getStatus() != s.status || !s.codeHash.equals(row.getCodeHash())) throw stale(s);
+    }
+
+    private StaleState stale(OtpState s) {
+        states.invalidate(s.phone);
+        return STALE;
+    }
+
+    private <R extends Serializable> Response<R> conflict() {
+        return Response.fail(409, "Code changed, try again", HttpStatus.CONFLICT);
+    }
+
+    private <R extends Serializable> Response<R> tooManyRequests(HttpServletResponse res, Instant retryAt, Instant now) {
+        long seconds = Math.max(1, Duration.between(now, retryAt).toSeconds());
+        res.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(seconds));
+        return Response.fail(429, "Too many requests", HttpStatus.TOO_MANY_REQUESTS);
+    }
+
+    private boolean matches(String code, OtpState s) {
+        return MessageDigest.isEqual(
+                hash(code, s.salt).getBytes(StandardCharsets.US_ASCII),
+                s.codeHash.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    private static String hash(String code, String salt) {
+        return HashUtils.hmacSha256Hex(code, salt);
+    }
+
+    private String newCode() {
+        String digits = Integer.toString(random.nextInt(codeBound));
+        return "0".repeat(props.getCodeLength() - digits.length()) + digits;
+    }
+
+    private String newSalt() {
+        byte[] salt = new byte[SALT_BYTES];
+        random.nextBytes(salt);
+        return HashUtils.toHex(salt);
+    }
+
+    private ReentrantLock lockFor(String phone) {
+        int h = phone.hashCode();
+        return locks[(h ^ (h >>> 16)) & (locks.length - 1)];
+    }
+
+    private static String truncate(String ua) {
+        return ua == null || ua.length() <= USER_AGENT_MAX ? ua : ua.substring(0, USER_AGENT_MAX);
+    }
+
+    /**
+     * The cached state no longer matches the row; thrown without a stack trace.
+     */
+    private static final class StaleState extends RuntimeException {
+        StaleState() {
+            super(null, null, false, false);
+        }
+    }
+
+    /**
+     * Mutable per-phone state; only read or written under the phone's stripe lock.
+     */
+    private static final class OtpState {
+        final Long id;
+        final String phone;
+        /**
+         * Owner of the phone, {@code null} if not registered.
+         */
+        final Long userId;
+        final Instant windowStart;
+        String codeHash;
+        String salt;
+        Instant expiresAt;
+        Instant lastSentAt;
+        int sends;
+        short attempts;
+        OtpStatus status;
+
+        private OtpState(OtpCode row, Long userId) {
+            this.id = row.getId();
+            this.phone = row.getPhone();
+            this.userId = userId;
+            this.windowStart = row.getCreatedAt();
+            this.codeHash = row.getCodeHash();
+            this.salt = row.getSalt();
+            this.expiresAt = row.getExpiresAt();
+            this.lastSentAt = row.getLastSentAt();
+            this.sends = row.getResendCount() + 1;
+            this.attempts = row.getAttempts();
+            this.status = row.getStatus();
+        }
+
+        static OtpState of(OtpCode row, Long userId) {
+            return new OtpState(row, userId);
+        }
+
+        Instant windowEnd(Duration window) {
+            return windowStart.plus(window);
+        }
+    }
+}
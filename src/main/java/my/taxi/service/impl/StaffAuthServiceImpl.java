@@ -0,0 +1,128 @@
+package my.taxi.service.impl;
+
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import my.taxi.base.Request;
+import my.taxi.base.Response;
+import my.taxi.entities.auth.enums.BrutScope;
+import my.taxi.entities.user.StaffAccount;
+import my.taxi.entities.user.User;
+import my.taxi.payload.request.LoginRequest;
+import my.taxi.repository.StaffAccountRepository;
+import my.taxi.security.AuthMetrics;
+import my.taxi.security.bruteforce.BruteForceGuard;
+import my.taxi.security.password.PasswordHasher;
+import my.taxi.service.AuthService;
+import my.taxi.service.StaffAuthService;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+
+import java.util.Optional;
+
+/**
+ * Phone + password login for staff (admin panel).
+ *
+ * <p>The password check runs on {@link PasswordHasher}'s bounded pool and no transaction is open
+ * while it runs; when the pool is saturated the login is answered with 503 + {@code Retry-After}.
+ * Unknown phones are checked against a dummy hash so they take as long as a wrong password.
+ * Failures count towards {@link BruteForceGuard} ({@link BrutScope#LOGIN}); a locked account gets
+ * the same dummy-hash check and 401 as an unknown phone.</p>
+ *
+ * <p>After a successful check a hash written with another algorithm or weaker parameters than
+ * {@code app.password} is re-hashed and stored. The session itself is issued by
+ * {@link AuthService#loginByPhone}, like every other login.</p>
+ *
+ * Created by Avaz Absamatov
+ * Date: 10/18/2026
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class StaffAuthServiceImpl implements StaffAuthService {
+    private static final String HDR_USER_AGENT = "User-Agent";
+    private static final String MSG_BAD_CREDENTIALS = "Invalid phone or password";
+    private static final String BUSY_RETRY_AFTER_SECONDS = "1";
+
+    private final StaffAccountRepository staffAccountRepository;
+    private final PasswordHasher passwordHasher;
+    private final BruteForceGuard bruteForceGuard;
+    private final AuthService authService;
+    private final AuthMetrics metrics;
+    private volatile String dummyHash;
+
+    @Override
+    public Response<String> login(Request<LoginRequest> dto, HttpServletRequest request, HttpServletResponse res) {
+        Timer.Sample sample = metrics.start();
+        String outcome = AuthMetrics.OUTCOME_ERROR;
+        try {
+            final String phone = dto.getParams().getPhone().trim();
+            final String password = dto.getParams().getPassword();
+
+            Optional<StaffAccount> optAccount = staffAccountRepository.findByPhone(phone);
+            if (optAccount.isEmpty()) {
+                passwordHasher.matches(password, dummyHash());
+                outcome = AuthMetrics.LOGIN_USER_NOT_FOUND;
+                return Response.fail(401, MSG_BAD_CREDENTIALS, HttpStatus.UNAUTHORIZED);
+            }
+
+            StaffAccount account = optAccount.get();
+            User user = account.getUser();
+            if (!bruteForceGuard.lockedFor(user.getId(), BrutScope.LOGIN).isZero()) {
+                // answered like an unknown phone, so a lock does not reveal that the account exists
+                passwordHasher.matches(password, dummyHash());
+                outcome = AuthMetrics.STAFF_LOCKED;
+                return Response.fail(401, MSG_BAD_CREDENTIALS, HttpStatus.UNAUTHORIZED);
+            }
+
+            if (!passwordHasher.matches(password, account.getPassword())) {
+                bruteForceGuard.registerFailure(user.getId(), BrutScope.LOGIN,
+                        request.getRemoteAddr(), request.getHeader(HDR_USER_AGENT));
+                outcome = AuthMetrics.STAFF_BAD_CREDENTIALS;
+                return Response.fail(401, MSG_BAD_CREDENTIALS, HttpStatus.UNAUTHORIZED);
+            }
+            bruteForceGuard.registerSuccess(user.getId(), BrutScope.LOGIN);
+
+            if (!user.isEnabled() || !user.isAccountNonLocked()) {
+                outcome = AuthMetrics.STAFF_DISABLED;
+                return Response.fail(403, "Account disabled", HttpStatus.FORBIDDEN);
+            }
+
+            upgradeHash(account, password);
+            Response<String> result = authService.loginByPhone(phone, request, res);
+            outcome = result.isSuccess() ? AuthMetrics.OUTCOME_SUCCESS : AuthMetrics.OUTCOME_ERROR;
+            return result;
+        } catch (PasswordHasher.BusyException e) {
+            outcome = AuthMetrics.STAFF_BUSY;
+            res.setHeader(HttpHeaders.RETRY_AFTER, BUSY_RETRY_AFTER_SECONDS);
+            return Response.fail(503, "Service busy, try again", HttpStatus.SERVICE_UNAVAILABLE);
+        } finally {
+            metrics.stopStaffLogin(sample, outcome);
+        }
+    }
+
+    /**
+     * Best effort: if the pool is busy now the hash is upgraded on a later login.
+     */
+    private void upgradeHash(StaffAccount account, String password) {
+        String current = account.getPassword();
+        if (!passwordHasher.upgradeEncoding(current)) return;
+        try {
+            staffAccountRepository.rehash(account.getId(), current, passwordHasher.encode(password));
+        } catch (PasswordHasher.BusyException e) {
+            log.debug("Password re-hash for staff account {} postponed: hashing pool busy", account.getId());
+        }
+    }
+
+    /**
+     * Hash of a random-looking constant with the current settings, built on first use.
+     */
+    private String dummyHash() {
+        String hash = dummyHash;
+        if (hash == null) dummyHash = hash = passwordHasher.encode("dummy-" + System.nanoTime());
+        return hash;
+    }
+}
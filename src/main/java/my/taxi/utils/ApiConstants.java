@@ -11,7 +11,11 @@ public class ApiConstants {
     public static final String BASE_URL = "api/v1";
     public static final String AUTH = "/auth";
     public static final String LOGIN = "/login";
+    public static final String STAFF_LOGIN = "/staff/login";
     public static final String LOGOUT = "/logout";
+    public static final String LOGOUT_ALL = "/logout-all";
     public static final String REGISTER = "/register";
     public static final String REFRESH_TOKEN = "/refresh-token";
+    public static final String OTP_SEND = "/otp/send";
+    public static final String OTP_VERIFY = "/otp/verify";
 }
@@ -4,43 +4,273 @@ import lombok.extern.slf4j.Slf4j;
 
 import javax.crypto.Mac;
 import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
 import java.security.MessageDigest;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Supplier;
 
 /**
+ * SHA-256 / HMAC-SHA256 helpers used on every login, refresh and refresh-token persist.
+ *
+ * <p>{@link Mac}/{@link MessageDigest} instances are created once and recycled through small
+ * lock-free pools (no provider lookup per call, works the same on platform and virtual threads).
+ * Output is hex-encoded with a lookup table straight into the result buffer.</p>
+ *
+ * <p>For a fixed secret use {@link #hmacSha256(String)} once and keep the returned
+ * {@link HmacSha256}: its instances stay initialised with the key. The static
+ * {@code hmacSha256Hex} methods key a Mac from a shared pool on every call.</p>
+ *
  * Created by Avaz Absamatov
  * Date: 10/10/2025
  */
 @Slf4j
 public final class HashUtils {
+    private static final String HMAC_SHA256 = "HmacSHA256";
+    private static final String SHA256 = "SHA-256";
+    private static final int DIGEST_LENGTH = 32;
+    private static final byte[] HEX = "0123456789abcdef".getBytes(StandardCharsets.US_ASCII);
+    private static final int POOL_SIZE = Math.max(4, Runtime.getRuntime().availableProcessors() * 2);
+
+    private static final Pool<Engine<MessageDigest>> DIGESTS = new Pool<>(() -> new Engine<>(newDigest()));
+    /**
+     * Uninitialised Macs, keyed per call by the static {@code hmacSha256Hex} methods.
+     */
+    private static final Pool<Engine<Mac>> MACS = new Pool<>(() -> new Engine<>(newMac()));
+
     private HashUtils() {
     }
 
     public static String hmacSha256Hex(String data, String key) {
+        return hmacFor(key.getBytes(StandardCharsets.UTF_8)).hex(data);
+    }
+
+    /**
+     * Same as {@link #hmacSha256Hex(String, String)} with the key already encoded.
+     */
+    public static String hmacSha256Hex(String data, byte[] key) {
+        return hmacFor(key).hex(data);
+    }
+
+    public static String hmacSha256Hex(byte[] data, String key) {
+        return hmacFor(key.getBytes(StandardCharsets.UTF_8)).hex(data);
+    }
+
+    public static String hmacSha256Hex(ByteBuffer data, String key) {
+        return hmacFor(key.getBytes(StandardCharsets.UTF_8)).hex(data);
+    }
+
+    public static String sha256Hex(String data) {
+        return sha256Hex(data.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static String sha256Hex(byte[] data) {
+        return use(DIGESTS, "SHA-256 failed", e -> {
+            e.impl.update(data);
+            e.impl.digest(e.out, 0, DIGEST_LENGTH);
+            return toHex(e.out);
+        });
+    }
+
+    public static String sha256Hex(ByteBuffer data) {
+        return use(DIGESTS, "SHA-256 failed", e -> {
+            e.impl.update(data);
+            e.impl.digest(e.out, 0, DIGEST_LENGTH);
+            return toHex(e.out);
+        });
+    }
+
+    /**
+     * Returns a reusable HMAC-SHA256 for one fixed secret; keep it in a field.
+     */
+    public static HmacSha256 hmacSha256(String key) {
+        return new HmacSha256(key.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Same as {@link #hmacSha256(String)} for a raw key, e.g. {@code SecretKey.getEncoded()}.
+     */
+    public static HmacSha256 hmacSha256(byte[] key) {
+        return new HmacSha256(key.clone());
+    }
+
+    /**
+     * One-call handle over the shared pool of uninitialised Macs, so one-shot keys (OTP salts,
+     * per-device keys) never build a pool of their own.
+     */
+    private static HmacSha256 hmacFor(byte[] key) {
+        return new HmacSha256(new SecretKeySpec(key, HMAC_SHA256), MACS);
+    }
+
+    /**
+     * Takes an engine, runs {@code op} on it and returns it to the pool; an engine that failed is
+     * reset first.
+     */
+    private static <T, R> R use(Pool<Engine<T>> pool, String failure, EngineOp<T, R> op) {
+        Engine<T> e = pool.take();
         try {
-            Mac mac = Mac.getInstance("HmacSHA256");
-            mac.init(new SecretKeySpec(key.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
-            byte[] out = mac.doFinal(data.getBytes(StandardCharsets.UTF_8));
-            return toHex(out);
-        }catch (Exception e) {
-            throw new RuntimeException("HMAC calc failed", e);
+            return op.apply(e);
+        } catch (Exception ex) {
+            e.reset();
+            throw new RuntimeException(failure, ex);
+        } finally {
+            pool.release(e);
         }
+    }
 
+    /**
+     * Lower-case hex of {@code b}; one table lookup per nibble, no Formatter.
+     */
+    public static String toHex(byte[] b) {
+        return toHex(b, 0, b.length);
     }
 
-    public static String sha256Hex(String data) {
+    public static String toHex(byte[] b, int off, int len) {
+        byte[] out = new byte[len * 2];
+        for (int i = 0; i < len; i++) {
+            int v = b[off + i] & 0xFF;
+            out[i * 2] = HEX[v >>> 4];
+            out[i * 2 + 1] = HEX[v & 0x0F];
+        }
+        return new String(out, StandardCharsets.ISO_8859_1);
+    }
+
+    /**
+     * HMAC-SHA256 for one secret, over a pool of Macs pre-initialised with it (or, for a one-call
+     * handle, over the shared pool with the key set per call).
+     */
+    public static final class HmacSha256 {
+        private final Pool<Engine<Mac>> macs;
+        /**
+         * Set only when {@link #macs} is the shared, unkeyed pool.
+         */
+        private final SecretKeySpec perCallKey;
+
+        private HmacSha256(byte[] key) {
+            SecretKeySpec spec = new SecretKeySpec(key, HMAC_SHA256);
+            this.perCallKey = null;
+            this.macs = new Pool<>(() -> {
+                Mac mac = newMac();
+                try {
+                    mac.init(spec);
+                } catch (GeneralSecurityException ex) {
+                    throw new IllegalStateException("HMAC init failed", ex);
+                }
+                return new Engine<>(mac);
+            });
+        }
+
+        private HmacSha256(SecretKeySpec perCallKey, Pool<Engine<Mac>> shared) {
+            this.perCallKey = perCallKey;
+            this.macs = shared;
+        }
+
+        public String hex(String data) {
+            return hex(data.getBytes(StandardCharsets.UTF_8));
+        }
+
+        public String hex(byte[] data) {
+            return use(macs, "HMAC calc failed", e -> {
+                keyed(e).update(data);
+                e.impl.doFinal(e.out, 0);
+                return toHex(e.out);
+            });
+        }
+
+        public String hex(ByteBuffer data) {
+            return use(macs, "HMAC calc failed", e -> {
+                keyed(e).update(data);
+                e.impl.doFinal(e.out, 0);
+                return toHex(e.out);
+            });
+        }
+
+        /**
+         * Writes the raw 32-byte MAC of {@code data[off, off+len)} into {@code out[outOff..]}.
+         */
+        public void mac(byte[] data, int off, int len, byte[] out, int outOff) {
+            use(macs, "HMAC calc failed", e -> {
+                keyed(e).update(data, off, len);
+                e.impl.doFinal(out, outOff);
+                return null;
+            });
+        }
+
+        private Mac keyed(Engine<Mac> e) throws GeneralSecurityException {
+            if (perCallKey != null) e.impl.init(perCallKey);
+            return e.impl;
+        }
+    }
+
+    private static Mac newMac() {
         try {
-            MessageDigest md = MessageDigest.getInstance("SHA-256");
-            return toHex(md.digest(data.getBytes(StandardCharsets.UTF_8)));
-        } catch (Exception e) {
-            throw new RuntimeException("SHA-256 failed", e);
+            return Mac.getInstance(HMAC_SHA256);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(HMAC_SHA256 + " not available", e);
         }
     }
 
-    private static String toHex(byte[] b) {
-        StringBuilder sb = new StringBuilder(b.length * 2);
-        for (byte x : b) sb.append(String.format("%02x", x));
-        return sb.toString();
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance(SHA256);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(SHA256 + " not available", e);
+        }
     }
 
+    /**
+     * Algorithm instance plus its output buffer; owned by one caller between take/release.
+     */
+    private static final class Engine<T> {
+        final T impl;
+        final byte[] out = new byte[DIGEST_LENGTH];
+
+        Engine(T impl) {
+            this.impl = impl;
+        }
+
+        void reset() {
+            if (impl instanceof Mac mac) mac.reset();
+            else if (impl instanceof MessageDigest digest) digest.reset();
+        }
+    }
+
+    @FunctionalInterface
+    private interface EngineOp<T, R> {
+        R apply(Engine<T> engine) throws Exception;
+    }
+
+    /**
+     * Fixed-size lock-free object pool. Empty pool → new instance; full pool → instance dropped.
+     */
+    private static final class Pool<T> {
+        private final AtomicReferenceArray<T> slots = new AtomicReferenceArray<>(POOL_SIZE);
+        private final Supplier<T> factory;
+
+        Pool(Supplier<T> factory) {
+            this.factory = factory;
+        }
+
+        T take() {
+            int start = start();
+            for (int i = 0; i < POOL_SIZE; i++) {
+                int idx = (start + i) % POOL_SIZE;
+                T t = slots.getAndSet(idx, null);
+                if (t != null) return t;
+            }
+            return factory.get();
+        }
+
+        void release(T t) {
+            int start = start();
+            for (int i = 0; i < POOL_SIZE; i++) {
+                if (slots.compareAndSet((start + i) % POOL_SIZE, null, t)) return;
+            }
+        }
+
+        private static int start() {
+            return (int) (Thread.currentThread().threadId() % POOL_SIZE);
+        }
+    }
 }
@@ -0,0 +1,26 @@
+-- Moves schemas created by ddl-auto=update (baselined at V1) from IDENTITY ids to the per-entity
+-- sequences Hibernate now allocates from (BaseEntity / OtpCode: GenerationType.SEQUENCE, pooled-lo,
+-- increment 50). A table is only converted while its id is still an identity column, so on a
+-- database created by V1 this does nothing.
+--
+-- Each sequence <table>_seq is created if missing and moved past max(id), and the identity default
+-- is dropped so nothing else keeps handing out ids from the old generator.
+-- With pooled-lo a nextval() of N reserves ids N .. N+49 in the application.
+
+DO $$
+DECLARE
+    tbl text;
+BEGIN
+    FOREACH tbl IN ARRAY ARRAY['users', 'clients', 'driver_profiles', 'driver_documents', 'staff_profiles',
+                               'staff_account', 'cars', 'car_models', 'file_item', 'user_sessions',
+                               'user_brute_force_guard', 'otp_codes'] LOOP
+        IF EXISTS (SELECT 1 FROM information_schema.columns
+                    WHERE table_schema = current_schema() AND table_name = tbl
+                      AND column_name = 'id' AND is_identity = 'YES') THEN
+            EXECUTE format('CREATE SEQUENCE IF NOT EXISTS %I START WITH 1 INCREMENT BY 50', tbl || '_seq');
+            EXECUTE format('SELECT setval(%L, coalesce(max(id), 0) + 1, false) FROM %I', tbl || '_seq', tbl);
+            EXECUTE format('ALTER TABLE %I ALTER COLUMN id DROP IDENTITY', tbl);
+        END IF;
+    END LOOP;
+END
+$$;
@@ -0,0 +1,31 @@
+-- Moves user roles from the user_roles collection table of a ddl-auto=update schema (baselined at
+-- V1) into users.roles_mask (bit 1 << Role.ordinal(), see RoleSetConverter). Until roles_mask is
+-- filled every existing user loads with an empty role set. On a database created by V1 there is no
+-- user_roles table and this does nothing.
+--
+-- The array below must list Role constants in declaration order.
+
+DO $$
+BEGIN
+    IF to_regclass('user_roles') IS NULL THEN
+        RETURN;
+    END IF;
+
+    IF EXISTS (SELECT 1 FROM user_roles
+                WHERE role <> ALL (ARRAY['CLIENT', 'DRIVER', 'OPERATOR', 'ADMIN', 'MANAGER'])) THEN
+        RAISE EXCEPTION 'user_roles contains roles unknown to Role; extend the arrays in this migration';
+    END IF;
+
+    ALTER TABLE users ADD COLUMN IF NOT EXISTS roles_mask integer NOT NULL DEFAULT 0;
+
+    UPDATE users u
+       SET roles_mask = m.mask
+      FROM (SELECT ur.user_id,
+                   bit_or(1 << (array_position(ARRAY['CLIENT', 'DRIVER', 'OPERATOR', 'ADMIN', 'MANAGER'], ur.role) - 1)) AS mask
+              FROM user_roles ur
+             GROUP BY ur.user_id) m
+     WHERE m.user_id = u.id;
+
+    DROP TABLE user_roles;
+END
+$$;
@@ -0,0 +1,260 @@
+-- Baseline: the schema as Hibernate mapped it before migrations took over (ddl-auto is now
+-- validate). Databases created by ddl-auto=update are baselined at this version instead of
+-- running it (spring.flyway.baseline-on-migrate); V1_1 and V1_2 then bring them up to date and do
+-- nothing on a database created here.
+--
+-- Ids come from one <table>_seq per entity, increment 50 (pooled-lo); refresh_tokens is keyed by jti.
+
+CREATE SEQUENCE car_models_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE cars_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE clients_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE driver_documents_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE driver_profiles_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE file_item_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE otp_codes_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE staff_account_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE staff_profiles_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE user_brute_force_guard_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE user_sessions_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE users_seq START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE car_models (
+    id          bigint NOT NULL,
+    icon_id     bigint,
+    name        varchar(64) NOT NULL,
+    created_at  timestamp(6) with time zone NOT NULL,
+    created_by  bigint,
+    updated_at  timestamp(6) with time zone,
+    modified_by bigint,
+    deleted_at  timestamp(6) with time zone,
+    version     bigint,
+    PRIMARY KEY (id),
+    CONSTRAINT uk_car_models_icon UNIQUE (icon_id)
+);
+
+CREATE TABLE cars (
+    id                  bigint NOT NULL,
+    year_of_issue       integer NOT NULL,
+    model_id            bigint,
+    name                varchar(64) NOT NULL,
+    color               varchar(255) NOT NULL,
+    registration_number varchar(255) NOT NULL,
+    created_at          timestamp(6) with time zone NOT NULL,
+    created_by          bigint,
+    updated_at          timestamp(6) with time zone,
+    modified_by         bigint,
+    deleted_at          timestamp(6) with time zone,
+    version             bigint
+);
+
+CREATE TABLE clients (
+    id          bigint NOT NULL,
+    user_id     bigint,
+    first_name  varchar(64),
+    last_name   varchar(64),
+    created_at  timestamp(6) with time zone NOT NULL,
+    created_by  bigint,
+    updated_at  timestamp(6) with time zone,
+    modified_by bigint,
+    deleted_at  timestamp(6) with time zone,
+    version     bigint
+);
+
+CREATE TABLE driver_documents (
+    id          bigint NOT NULL,
+    driver_id   bigint,
+    image_id    bigint,
+    status      varchar(16) NOT NULL CHECK (status IN ('PENDING','APPROVED','REJECTED')),
+    doc_type    varchar(32) NOT NULL CHECK (doc_type IN ('PASSPORT_FRONT','PASSPORT_BACK','LICENSE_FRONT','LICENSE_BACK','CAR_FRONT','CAR_BACK','CAR_LEFT','CAR_RIGHT','DRIVER_SELFIE_PHOTO')),
+    created_at  timestamp(6) with time zone NOT NULL,
+    created_by  bigint,
+    updated_at  timestamp(6) with time zone,
+    modified_by bigint,
+    deleted_at  timestamp(6) with time zone,
+    version     bigint,
+    PRIMARY KEY (id),
+    CONSTRAINT uk_driver_doc_type UNIQUE (driver_id, doc_type)
+);
+
+CREATE TABLE driver_profiles (
+    id           bigint NOT NULL,
+    balance      numeric(19,2) NOT NULL,
+    rating_avg   numeric(3,2),
+    rating_count integer,
+    user_id      bigint,
+    status       varchar(24) NOT NULL CHECK (status IN ('DRAFT','PENDING_REVIEW','APPROVED','REJECTED','SUSPENDED')),
+    first_name   varchar(64) NOT NULL,
+    last_name    varchar(64) NOT NULL,
+    created_at   timestamp(6) with time zone NOT NULL,
+    created_by   bigint,
+    updated_at   timestamp(6) with time zone,
+    modified_by  bigint,
+    deleted_at   timestamp(6) with time zone,
+    version      bigint,
+    PRIMARY KEY (id),
+    CONSTRAINT uk_driver_user UNIQUE (user_id)
+);
+
+CREATE TABLE file_item (
+    id          bigint NOT NULL,
+    file_size   bigint,
+    file_name   varchar(255),
+    file_path   varchar(255),
+    hash_id     varchar(255),
+    created_at  timestamp(6) with time zone NOT NULL,
+    created_by  bigint,
+    updated_at  timestamp(6) with time zone,
+    modified_by bigint,
+    deleted_at  timestamp(6) with time zone,
+    version     bigint,
+    PRIMARY KEY (id),
+    CONSTRAINT uk_file_hash UNIQUE (hash_id)
+);
+
+CREATE TABLE otp_codes (
+    id           bigint NOT NULL,
+    attempts     smallint,
+    max_attempts smallint,
+    resend_count smallint,
+    status       smallint NOT NULL CHECK (status BETWEEN 0 AND 3),
+    expires_at   timestamp(6) with time zone,
+    last_sent_at timestamp(6) with time zone,
+    phone        varchar(12),
+    ip           varchar(64),
+    device_id    varchar(128),
+    user_agent   varchar(512),
+    code_hash    varchar(255),
+    salt         varchar(255),
+    created_at   timestamp(6) with time zone
+);
+
+CREATE TABLE refresh_tokens (
+    jti          varchar(64) NOT NULL,
+    user_id      bigint NOT NULL,
+    family_id    varchar(255) NOT NULL,
+    status       varchar(16) NOT NULL CHECK (status IN ('ACTIVE','USED','REVOKED')),
+    token_hash   varchar(64),
+    device_fp    varchar(128),
+    user_agent   varchar(256),
+    expires_at   timestamp(6) with time zone NOT NULL,
+    last_used_at timestamp(6) with time zone,
+    rotated_at   timestamp(6) with time zone,
+    created_at   timestamp(6) with time zone NOT NULL,
+    CONSTRAINT idx_rt_jti PRIMARY KEY (jti)
+);
+
+CREATE TABLE staff_account (
+    id                 bigint NOT NULL,
+    password_change_at timestamp(6) with time zone,
+    user_id            bigint NOT NULL,
+    password           varchar(255) NOT NULL,
+    created_at         timestamp(6) with time zone NOT NULL,
+    created_by         bigint,
+    updated_at         timestamp(6) with time zone,
+    modified_by        bigint,
+    deleted_at         timestamp(6) with time zone,
+    version            bigint,
+    PRIMARY KEY (id),
+    CONSTRAINT uk_staff_account_user UNIQUE (user_id)
+);
+
+CREATE TABLE staff_profiles (
+    id                   bigint NOT NULL,
+    must_change_password boolean,
+    user_id              bigint NOT NULL,
+    first_name           varchar(64) NOT NULL,
+    last_name            varchar(64) NOT NULL,
+    created_at           timestamp(6) with time zone NOT NULL,
+    created_by           bigint,
+    updated_at           timestamp(6) with time zone,
+    modified_by          bigint,
+    deleted_at           timestamp(6) with time zone,
+    version              bigint,
+    PRIMARY KEY (id),
+    CONSTRAINT uk_staff_profiles_user UNIQUE (user_id)
+);
+
+CREATE TABLE user_brute_force_guard (
+    id                 bigint NOT NULL,
+    failed_attempts    integer NOT NULL,
+    strike             smallint NOT NULL,
+    threshold          integer NOT NULL,
+    window_sec         integer NOT NULL,
+    last_failed_at     timestamp(6) with time zone,
+    lock1_sec          bigint NOT NULL,
+    lock2_sec          bigint NOT NULL,
+    locked_until       timestamp(6) with time zone,
+    user_id            bigint,
+    windows_started_at timestamp(6) with time zone,
+    last_ip            varchar(64),
+    last_user_agent    varchar(250),
+    scope              varchar(255) CHECK (scope IN ('LOGIN','OTP_SMS','TOTP','PASSWORD_RESET')),
+    created_at         timestamp(6) with time zone NOT NULL,
+    created_by         bigint,
+    updated_at         timestamp(6) with time zone,
+    modified_by        bigint,
+    deleted_at         timestamp(6) with time zone,
+    version            bigint,
+    PRIMARY KEY (id),
+    CONSTRAINT uk_bfg_user_scope UNIQUE (user_id, scope)
+);
+
+CREATE TABLE user_sessions (
+    id               bigint NOT NULL,
+    platform         smallint CHECK (platform BETWEEN 0 AND 5),
+    revoked          boolean NOT NULL,
+    expires_at       timestamp(6) with time zone,
+    refresh_token_id bigint,
+    revoked_at       timestamp(6) with time zone,
+    user_id          bigint,
+    session_id       uuid NOT NULL,
+    ip               varchar(64),
+    user_agent       varchar(512),
+    revoke_reason    varchar(255),
+    created_at       timestamp(6) with time zone NOT NULL,
+    created_by       bigint,
+    updated_at       timestamp(6) with time zone,
+    modified_by      bigint,
+    deleted_at       timestamp(6) with time zone,
+    version          bigint
+);
+
+CREATE TABLE users (
+    id            bigint NOT NULL,
+    active        boolean NOT NULL,
+    blocked       boolean NOT NULL,
+    roles_mask    integer DEFAULT 0 NOT NULL,
+    token_version bigint,
+    language      varchar(255) CHECK (language IN ('UZ_LATN','UZ_CYRL','RU','EN')),
+    phone         varchar(255) NOT NULL,
+    created_at    timestamp(6) with time zone NOT NULL,
+    created_by    bigint,
+    updated_at    timestamp(6) with time zone,
+    modified_by   bigint,
+    deleted_at    timestamp(6) with time zone,
+    version       bigint,
+    PRIMARY KEY (id),
+    CONSTRAINT uk_users_phone UNIQUE (phone)
+);
+
+CREATE INDEX idx_driver_documents_driver ON driver_documents (driver_id);
+CREATE INDEX idx_driver_documents_status ON driver_documents (status);
+CREATE INDEX idx_driver_user ON driver_profiles (user_id);
+CREATE INDEX idx_driver_status ON driver_profiles (status);
+CREATE INDEX idx_file_hash ON file_item (hash_id);
+CREATE INDEX idx_otp_phone_status ON otp_codes (phone, status);
+CREATE INDEX idx_otp_expires ON otp_codes (expires_at);
+CREATE INDEX idx_rt_user ON refresh_tokens (user_id);
+CREATE INDEX idx_rt_family ON refresh_tokens (family_id);
+CREATE INDEX idx_rt_expires ON refresh_tokens (expires_at, jti);
+CREATE INDEX idx_staff_user ON staff_profiles (user_id);
+CREATE INDEX idx_user_sessions_user ON user_sessions (user_id);
+CREATE INDEX idx_session_user_revoked ON user_sessions (user_id, revoked);
+CREATE INDEX idx_session_expires_at ON user_sessions (expires_at);
+CREATE INDEX idx_users_phone ON users (phone);
+CREATE INDEX idx_users_blocked ON users (blocked);
+
+ALTER TABLE car_models ADD CONSTRAINT fk_car_models_icon FOREIGN KEY (icon_id) REFERENCES file_item;
+ALTER TABLE cars ADD CONSTRAINT fk_cars_model FOREIGN KEY (model_id) REFERENCES car_models;
+ALTER TABLE staff_account ADD CONSTRAINT fk_staff_accounts_user FOREIGN KEY (user_id) REFERENCES users;
+ALTER TABLE staff_profiles ADD CONSTRAINT fk_staff_profiles_user FOREIGN KEY (user_id) REFERENCES users;
@@ -0,0 +1,30 @@
+-- Indexes for the queries on the login / refresh path (checked by AuthQueryIndexTest).
+--
+-- CONCURRENTLY keeps refresh_tokens and users writable while the indexes build; Flyway runs such
+-- a script outside a transaction. If it fails half-way, drop the INVALID index it leaves behind
+-- (\d <table> shows it) and re-run. Postgres cannot build an index on a partitioned table
+-- concurrently, so db/partitioning refuses to run before this migration is applied.
+
+-- findActiveByUserAndDevice: the device-bound token on login / refresh
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_rt_active_user_device
+    ON refresh_tokens (user_id, device_fp)
+    WHERE status = 'ACTIVE';
+
+-- ACTIVE tokens of a user, least recently used first: revokeOldestActive (max-session
+-- eviction), countActiveByUser, revokeAllActiveByUser and the token half of
+-- findLoginRows. The ordering key is the expression those queries sort by; INCLUDE carries every
+-- column they read, so they are answered from the index alone.
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_rt_active_user_lru
+    ON refresh_tokens (user_id, (coalesce(last_used_at, created_at)))
+    INCLUDE (jti, family_id, device_fp, expires_at, last_used_at, created_at, user_agent)
+    WHERE status = 'ACTIVE';
+
+-- Every users query carries deleted_at IS NULL (@SQLRestriction); soft-deleted rows stay out of
+-- this index, and id / token_version / roles_mask come from it without a heap visit.
+-- uk_users_phone still enforces uniqueness across all rows.
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_users_phone_live
+    ON users (phone)
+    INCLUDE (id, token_version, roles_mask)
+    WHERE deleted_at IS NULL;
+
+DROP INDEX CONCURRENTLY IF EXISTS idx_users_phone;
@@ -0,0 +1,88 @@
+-- Converts refresh_tokens, otp_codes and user_sessions to monthly RANGE partitions on expires_at,
+-- so that ExpiredRowReaper can drop whole months instead of deleting row by row.
+--
+-- Optional one-off, run with psql in a maintenance window: the copy holds ACCESS EXCLUSIVE on each
+-- table. It is not a Flyway migration because it is a per-deployment choice and needs that window.
+--
+-- Required order: deploy and start a build that has applied the Flyway migrations up to V2 first,
+-- then run this script. V2 builds its indexes CONCURRENTLY, which Postgres refuses on a partitioned
+-- table; the check below aborts if V2 has not been applied or the tables are already partitioned.
+-- Later migrations that index these tables must not use CONCURRENTLY.
+-- Partitions are named <table>_pYYYY_MM (the reaper relies on that) plus a <table>_default catch-all.
+-- The reaper keeps creating future months (app.retention.partition.premake-months) afterwards.
+--
+-- Caveats of partitioning on expires_at:
+--   * the primary key becomes (key, expires_at); jti / id stay unique in practice (uuid / <table>_seq)
+--     but the database no longer enforces it on its own, so idx_rt_jti is recreated per partition
+--     as a plain index;
+--   * expires_at becomes NOT NULL - rows without it are given one below before the copy;
+--   * ids keep coming from otp_codes_seq / user_sessions_seq (see V1__baseline), which the copy
+--     does not touch.
+
+BEGIN;
+
+DO $$
+BEGIN
+    IF to_regclass('flyway_schema_history') IS NULL
+       OR NOT EXISTS (SELECT 1 FROM flyway_schema_history WHERE version = '2' AND success) THEN
+        RAISE EXCEPTION 'Flyway migration V2 is not applied yet; start the application once before partitioning';
+    END IF;
+    IF EXISTS (SELECT 1 FROM pg_class
+                WHERE relname IN ('refresh_tokens', 'otp_codes', 'user_sessions')
+                  AND relnamespace = current_schema()::regnamespace AND relkind = 'p') THEN
+        RAISE EXCEPTION 'auth tables are already partitioned';
+    END IF;
+END
+$$;
+
+CREATE FUNCTION pg_temp.partition_by_expiry(tbl text, pk text) RETURNS void LANGUAGE plpgsql AS $$
+DECLARE
+    m    date;
+    last date := (date_trunc('month', now() AT TIME ZONE 'UTC') + interval '2 months')::date;
+BEGIN
+    EXECUTE format('CREATE TABLE %1$I_part (LIKE %1$I INCLUDING DEFAULTS INCLUDING IDENTITY)'
+                   ' PARTITION BY RANGE (expires_at)', tbl);
+    EXECUTE format('ALTER TABLE %1$I_part ALTER COLUMN expires_at SET NOT NULL,'
+                   ' ADD CONSTRAINT %1$s_pkey_part PRIMARY KEY (%2$I, expires_at)', tbl, pk);
+    EXECUTE format('CREATE TABLE %1$I_default PARTITION OF %1$I_part DEFAULT', tbl);
+
+    EXECUTE format('SELECT date_trunc(''month'', min(expires_at) AT TIME ZONE ''UTC'')::date FROM %I', tbl) INTO m;
+    m := least(coalesce(m, last), date_trunc('month', now() AT TIME ZONE 'UTC')::date);
+    WHILE m <= last LOOP
+        EXECUTE format('CREATE TABLE %1$I PARTITION OF %2$I_part FOR VALUES FROM (%3$L) TO (%4$L)',
+                       tbl || to_char(m, '"_p"YYYY_MM'), tbl,
+                       m || ' 00:00:00+00', (m + interval '1 month')::date || ' 00:00:00+00');
+        m := (m + interval '1 month')::date;
+    END LOOP;
+
+    EXECUTE format('INSERT INTO %1$I_part OVERRIDING SYSTEM VALUE SELECT * FROM %1$I', tbl);
+    EXECUTE format('DROP TABLE %I', tbl);
+    EXECUTE format('ALTER TABLE %1$I_part RENAME TO %1$I', tbl);
+    EXECUTE format('ALTER TABLE %1$I RENAME CONSTRAINT %1$s_pkey_part TO %1$s_pkey', tbl);
+END
+$$;
+
+UPDATE otp_codes SET expires_at = coalesce(created_at, now()) WHERE expires_at IS NULL;
+UPDATE user_sessions SET expires_at = coalesce(revoked_at, created_at, now()) + interval '30 days'
+ WHERE expires_at IS NULL;
+
+SELECT pg_temp.partition_by_expiry('refresh_tokens', 'jti');
+CREATE INDEX idx_rt_jti ON refresh_tokens (jti);
+CREATE INDEX idx_rt_user ON refresh_tokens (user_id);
+CREATE INDEX idx_rt_family ON refresh_tokens (family_id);
+CREATE INDEX idx_rt_expires ON refresh_tokens (expires_at, jti);
+CREATE INDEX idx_rt_active_user_device ON refresh_tokens (user_id, device_fp) WHERE status = 'ACTIVE';
+CREATE INDEX idx_rt_active_user_lru ON refresh_tokens (user_id, (coalesce(last_used_at, created_at)))
+    INCLUDE (jti, family_id, device_fp, expires_at, last_used_at, created_at, user_agent)
+    WHERE status = 'ACTIVE';
+
+SELECT pg_temp.partition_by_expiry('otp_codes', 'id');
+CREATE INDEX idx_otp_phone_status ON otp_codes (phone, status);
+CREATE INDEX idx_otp_expires ON otp_codes (expires_at);
+
+SELECT pg_temp.partition_by_expiry('user_sessions', 'id');
+CREATE INDEX idx_user_sessions_user ON user_sessions (user_id);
+CREATE INDEX idx_session_user_revoked ON user_sessions (user_id, revoked);
+CREATE INDEX idx_session_expires_at ON user_sessions (expires_at);
+
+COMMIT;
@@ -0,0 +1,41 @@
+package my.taxi.entities.user.converter;
+
+import my.taxi.entities.user.enums.Role;
+import my.taxi.security.RoleAuthorities;
+import org.junit.jupiter.api.Test;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RoleSetConverterTest {
+    private final RoleSetConverter converter = new RoleSetConverter();
+
+    @Test
+    void everyRoleSetRoundTrips() {
+        for (int mask = 0; mask < 1 << Role.values().length; mask++) {
+            Set<Role> roles = converter.convertToEntityAttribute(mask);
+            assertEquals(mask, converter.convertToDatabaseColumn(roles));
+        }
+    }
+
+    @Test
+    void bitsFollowDeclarationOrder() {
+        // stored data depends on this: new roles must be appended
+        assertEquals(1, RoleSetConverter.toMask(EnumSet.of(Role.CLIENT)));
+        assertEquals(10, RoleSetConverter.toMask(EnumSet.of(Role.DRIVER, Role.ADMIN)));
+        assertEquals(0, converter.convertToDatabaseColumn(null));
+        assertEquals(EnumSet.noneOf(Role.class), converter.convertToEntityAttribute(null));
+    }
+
+    @Test
+    void authoritiesAreSharedPerMask() {
+        Set<Role> a = EnumSet.of(Role.ADMIN, Role.CLIENT);
+        Set<Role> b = Set.of(Role.CLIENT, Role.ADMIN);
+        assertSame(RoleAuthorities.authorities(a), RoleAuthorities.authorities(b));
+        assertSame(RoleAuthorities.names(a), RoleAuthorities.names(9));
+        assertEquals(Set.of("CLIENT", "ADMIN"), RoleAuthorities.names(a));
+        assertThrows(UnsupportedOperationException.class, () -> RoleAuthorities.names(a).add("X"));
+    }
+}
@@ -0,0 +1,182 @@
+package my.taxi.repository;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.flywaydb.core.Flyway;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.sql.Connection;
+import java.sql.Statement;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Migrates an embedded Postgres with db/migration and checks that every query on the login /
+ * refresh path is planned as an index scan on the index meant for it.
+ *
+ * <p>Each repository method is called once and the SQL Hibernate sends for it is captured by
+ * {@link Recorder}; that statement is then prepared and explained as the generic plan, i.e. for
+ * any parameter values. Sequential scans are disabled so the small seed cannot make the planner
+ * prefer one; an index the query cannot use still loses.</p>
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+        + "my.taxi.repository.AuthQueryIndexTest$Recorder")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class AuthQueryIndexTest {
+    private static final EmbeddedPostgres pg = migrateAndSeed();
+
+    @Autowired
+    private RefreshTokenRepository refreshTokens;
+    @Autowired
+    private UserRepository users;
+    @Autowired
+    private OtpCodeRepository otpCodes;
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    /**
+     * Collects the statements Hibernate prepares.
+     */
+    public static class Recorder implements StatementInspector {
+        static final List<String> SQL = Collections.synchronizedList(new ArrayList<>());
+
+        @Override
+        public String inspect(String sql) {
+            SQL.add(sql);
+            return sql;
+        }
+    }
+
+    private static EmbeddedPostgres migrateAndSeed() {
+        try {
+            EmbeddedPostgres pg = EmbeddedPostgres.builder().start();
+            Flyway.configure()
+                    .dataSource(pg.getPostgresDatabase())
+                    .locations("classpath:db/migration")
+                    .configuration(Map.of("flyway.postgresql.transactional.lock", "false"))
+                    .load()
+                    .migrate();
+            try (Connection conn = pg.getPostgresDatabase().getConnection(); Statement st = conn.createStatement()) {
+                st.execute("""
+                        INSERT INTO users (id, phone, active, blocked, roles_mask, token_version, created_at, deleted_at)
+                        SELECT g, '9989' || lpad(g::text, 8, '0'), true, false, 1, 0, now(),
+                               CASE WHEN g % 10 = 0 THEN now() END
+                          FROM generate_series(1, 5000) g
+                        """);
+                st.execute("""
+                        INSERT INTO refresh_tokens (jti, user_id, family_id, status, device_fp, user_agent,
+                                                    expires_at, last_used_at, created_at)
+                        SELECT 'jti-' || g, g % 5000 + 1, 'fam-' || g,
+                               CASE WHEN g % 4 = 0 THEN 'ACTIVE' ELSE 'REVOKED' END,
+                               'fp-' || g, 'UA', now() + interval '14 days',
+                               CASE WHEN g % 3 = 0 THEN now() END, now() - g * interval '1 minute'
+                          FROM generate_series(1, 40000) g
+                        """);
+                st.execute("""
+                        INSERT INTO otp_codes (id, phone, status, attempts, max_attempts, resend_count, created_at, expires_at)
+                        SELECT g, '9989' || lpad((g % 5000)::text, 8, '0'), g % 4, 0, 5, 0, now(), now() + interval '2 minutes'
+                          FROM generate_series(1, 20000) g
+                        """);
+                st.execute("ANALYZE");
+            }
+            return pg;
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @DynamicPropertySource
+    static void datasource(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", () -> pg.getJdbcUrl("postgres", "postgres"));
+        registry.add("spring.datasource.username", () -> "postgres");
+        registry.add("spring.datasource.password", () -> "postgres");
+        registry.add("spring.flyway.enabled", () -> "false");
+    }
+
+    static Stream<Arguments> queries() {
+        return Stream.of(
+                query("RefreshTokenRepository.findByJti", "idx_rt_jti",
+                        t -> t.refreshTokens.findByJti("jti-4")),
+                query("RefreshTokenRepository.findActiveByUserAndDevice", "idx_rt_active_user_device",
+                        t -> t.refreshTokens.findActiveByUserAndDevice(5L, "fp-4")),
+                query("RefreshTokenRepository.countActiveByUser", "idx_rt_active_user_",
+                        t -> t.refreshTokens.countActiveByUser(5L)),
+                query("RefreshTokenRepository.revokeFamily", "idx_rt_family",
+                        t -> t.refreshTokens.revokeFamily("fam-4")),
+                query("RefreshTokenRepository.revokeAllActiveByUser", "idx_rt_active_user_",
+                        t -> t.refreshTokens.revokeAllActiveByUser(5L)),
+                query("RefreshTokenRepository.revokeOldestActive", "idx_rt_active_user_lru",
+                        t -> t.refreshTokens.revokeOldestActive(5L, 1)),
+                query("UserRepository.findLoginRows (users)", "idx_users_phone_live",
+                        t -> t.users.findLoginRows("998900000005")),
+                query("UserRepository.findLoginRows (tokens)", "idx_rt_active_user_lru",
+                        t -> t.users.findLoginRows("998900000005")),
+                query("UserRepository.findByPhone", "idx_users_phone_live",
+                        t -> t.users.findByPhone("998900000005")),
+                query("UserRepository.findIdByPhone", "idx_users_phone_live",
+                        t -> t.users.findIdByPhone("998900000005")),
+                query("UserRepository.findTokenVersionById", "users_pkey",
+                        t -> t.users.findTokenVersionById(5L)),
+                query("OtpCodeRepository.findFirstByPhoneAndCreatedAtAfterOrderByCreatedAtDesc", "idx_otp_phone_status",
+                        t -> t.otpCodes.findFirstByPhoneAndCreatedAtAfterOrderByCreatedAtDesc("998900000005",
+                                Instant.now().minusSeconds(3600))));
+    }
+
+    private static Arguments query(String name, String index, Consumer<AuthQueryIndexTest> call) {
+        return Arguments.of(name, index, call);
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("queries")
+    void usesIndex(String query, String index, Consumer<AuthQueryIndexTest> call) {
+        Recorder.SQL.clear();
+        call.accept(this);
+        assertEquals(1, Recorder.SQL.size(), () -> query + " sent " + Recorder.SQL);
+        String sql = Recorder.SQL.get(0);
+
+        String plan = explain(sql);
+        assertTrue(plan.contains(" using " + index) || plan.contains(" on " + index),
+                () -> query + " does not use " + index + ":\n" + sql + "\n" + plan);
+        assertFalse(plan.contains("Seq Scan"), () -> query + " scans a whole table:\n" + sql + "\n" + plan);
+    }
+
+    /**
+     * Generic plan of a statement with JDBC {@code ?} parameters; runs in the test's transaction.
+     */
+    private String explain(String sql) {
+        StringBuilder numbered = new StringBuilder();
+        int params = 0;
+        for (char c : sql.toCharArray()) {
+            if (c == '?') numbered.append('$').append(++params);
+            else numbered.append(c);
+        }
+        jdbc.execute("SET LOCAL enable_seqscan = off");
+        jdbc.execute("SET LOCAL plan_cache_mode = force_generic_plan");
+        jdbc.execute("PREPARE q AS " + numbered);
+        try {
+            String args = params == 0 ? "" : Stream.generate(() -> "NULL").limit(params)
+                    .collect(Collectors.joining(",", "(", ")"));
+            return String.join("\n", jdbc.queryForList("EXPLAIN EXECUTE q" + args, String.class));
+        } finally {
+            jdbc.execute("DEALLOCATE q");
+        }
+    }
+}
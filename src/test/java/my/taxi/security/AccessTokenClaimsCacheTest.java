@@ -0,0 +1,98 @@
+package my.taxi.security;
+
+import io.jsonwebtoken.JwtException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import my.taxi.security.web.JwtProperties;
+import my.taxi.security.web.UserProfilePort;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class AccessTokenClaimsCacheTest {
+    private static final String SECRET = "404E635266556A586E3272357538782F413F4428472B4B6250645367566B5970";
+
+    private final JwtProperties props = props();
+    private final JwtKeyRing keyRing = new JwtKeyRing(props);
+    private final JWTService jwt = new JWTService(props, keyRing, new SimpleMeterRegistry());
+    private final AtomicLong nanos = new AtomicLong();
+    private final AccessTokenClaimsCache cache = new AccessTokenClaimsCache(
+            new FastAccessTokenVerifier(jwt, keyRing, props, new SimpleMeterRegistry()), props, new SimpleMeterRegistry(),
+            nanos::get);
+
+    private static JwtProperties props() {
+        JwtProperties p = new JwtProperties();
+        p.setIssuer("my_taxi");
+        p.setAudience("my.taxi.app");
+        p.setSecretBase64(SECRET);
+        p.setAccessExpMin(10);
+        p.setRefreshExpDays(14);
+        return p;
+    }
+
+    @Test
+    void extractsClaimsOnce() {
+        String token = jwt.issueAccess(7L, "998900000007", Set.of("DRIVER", "ADMIN"), 3L);
+
+        AccessTokenClaims claims = cache.resolve(token);
+        assertEquals(new AccessTokenClaims(7L, "998900000007", 10, 3L, claims.expiresAt()), claims);
+        assertTrue(claims.expiresAt() > System.currentTimeMillis() + 9 * 60_000L);
+        assertSame(claims, cache.resolve(token));
+    }
+
+    @Test
+    void entryExpiresAtExp() {
+        String token = jwt.issueAccess(7L, "998900000007", Set.of("CLIENT"), 3L);
+        AccessTokenClaims claims = cache.resolve(token);
+        long untilExp = claims.expiresAt() - System.currentTimeMillis();
+
+        nanos.addAndGet(Duration.ofMillis(untilExp - 5_000).toNanos());
+        assertSame(claims, cache.resolve(token));
+
+        // past exp the entry is gone and the token is verified again
+        nanos.addAndGet(Duration.ofSeconds(6).toNanos());
+        assertNotSame(claims, cache.resolve(token));
+    }
+
+    @Test
+    void cachedTokenIsRejectedOnceTheVersionIsBumped() throws Exception {
+        String token = jwt.issueAccess(7L, "998900000007", Set.of("CLIENT"), 3L);
+        UserProfilePort users = mock(UserProfilePort.class);
+        when(users.currentTokenVersion(7L)).thenReturn(3L, 4L);
+        JwtAuthenticationFilter filter = new JwtAuthenticationFilter(cache, users);
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/v1/api/trips");
+        request.addHeader(HttpHeaders.AUTHORIZATION, "Bearer " + token);
+
+        MockHttpServletResponse first = new MockHttpServletResponse();
+        filter.doFilter(request, first, new MockFilterChain());
+        assertEquals(200, first.getStatus());
+        SecurityContextHolder.clearContext();
+
+        // still cached, but the filter's ver check turns it away
+        AccessTokenClaims cached = cache.resolve(token);
+        MockHttpServletResponse second = new MockHttpServletResponse();
+        filter.doFilter(request, second, new MockFilterChain());
+        assertEquals(401, second.getStatus());
+        assertSame(cached, cache.resolve(token));
+    }
+
+    @Test
+    void rejectsRefreshAndTamperedTokens() {
+        String refresh = jwt.issueRefresh(7L, "fam", "jti", 3L);
+        assertThrows(JwtException.class, () -> cache.resolve(refresh));
+
+        String token = jwt.issueAccess(7L, "998900000007", Set.of("CLIENT"), 3L);
+        String tampered = token.substring(0, token.length() - 2) + (token.endsWith("A") ? "BB" : "AA");
+        assertThrows(JwtException.class, () -> cache.resolve(tampered));
+    }
+}
@@ -0,0 +1,73 @@
+package my.taxi.security;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import my.taxi.utils.HashUtils;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.Locale;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DeviceFingerPrServiceTest {
+    private static final String SECRET = "345676543HELLO";
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final DeviceFingerPrService service = new DeviceFingerPrService(SECRET, DataSize.ofMegabytes(1),
+            Duration.ofHours(1), registry);
+
+    @Test
+    void fingerprintsAreUnchanged() {
+        String[] agents = {null, "", "okhttp/4.12.0", "Mozilla/5.0 (iPhone; CPU iPhone OS 17_4 like Mac OS X) Safari/604.1",
+                "MyTaxi/2.3 (Android 14; SM-A546E)", "Élan/1.0 ÜBER", "NA"};
+        for (String ua : agents) {
+            for (String deviceId : new String[]{"3f1c9a0e-6b7d-4c1e-9a55-0d2b7c4e8f11", "ÄPFEL-1"}) {
+                assertEquals(legacy(deviceId, 42L, ua), service.userScopedFingerprint(request(deviceId, ua), 42L),
+                        () -> deviceId + " / " + ua);
+            }
+        }
+    }
+
+    @Test
+    void computedOncePerDevice() {
+        String fp = service.userScopedFingerprint(request("device-1", "MyTaxi/2.3"), 7L);
+        for (int i = 0; i < 5; i++) assertEquals(fp, service.userScopedFingerprint(request("device-1", "MyTaxi/2.3"), 7L));
+        assertEquals(fp, service.userScopedFingerprint(request("device-1", "MYTAXI/2.3"), 7L));
+        assertNotEquals(fp, service.userScopedFingerprint(request("device-1", "MyTaxi/2.3"), 8L));
+        assertNotEquals(fp, service.userScopedFingerprint(request("device-2", "MyTaxi/2.3"), 7L));
+
+        assertEquals(5, registry.get("cache.gets").tag("cache", "device.fingerprint").tag("result", "hit").functionCounter().count());
+        assertEquals(4, registry.get("cache.gets").tag("cache", "device.fingerprint").tag("result", "miss").functionCounter().count());
+    }
+
+    @Test
+    void oversizedHeadersAreNotCached() {
+        String ua = "A".repeat(DeviceFingerPrService.MAX_CACHED_HEADER_CHARS + 1);
+        for (int i = 0; i < 3; i++) {
+            assertEquals(legacy("device-1", 7L, ua), service.userScopedFingerprint(request("device-1", ua), 7L));
+        }
+        assertEquals(0, registry.get("cache.gets").tag("cache", "device.fingerprint").tag("result", "miss").functionCounter().count());
+        assertEquals(3, registry.get("device.fingerprint").timer().count());
+    }
+
+    @Test
+    void deviceIdIsRequired() {
+        assertThrows(IllegalArgumentException.class, () -> service.userScopedFingerprint(request(" ", "MyTaxi/2.3"), 7L));
+    }
+
+    /**
+     * The fingerprint as computed before it was memoised.
+     */
+    private static String legacy(String deviceId, long userId, String ua) {
+        return HashUtils.hmacSha256Hex(SECRET, deviceId + ":" + userId + ":" + (ua == null ? "NA" : ua.toLowerCase(Locale.ROOT)));
+    }
+
+    private static MockHttpServletRequest request(String deviceId, String ua) {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader("X-Device-Id", deviceId);
+        if (ua != null) request.addHeader("User-Agent", ua);
+        return request;
+    }
+}
@@ -0,0 +1,204 @@
+package my.taxi.security;
+
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.io.Decoders;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import my.taxi.security.web.JwtProperties;
+import org.junit.jupiter.api.Test;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Differential test: for every token, {@link FastAccessTokenVerifier} must give the same claims or
+ * the same exception type as {@code JWTService.verify}, and its fast path must never accept a token
+ * jjwt rejects.
+ */
+class FastAccessTokenVerifierTest {
+    private static final String SECRET_1 = "404E635266556A586E3272357538782F413F4428472B4B6250645367566B5970";
+    private static final String SECRET_2 = "5A7134743777217A25432A462D4A614E645267556B58703273357638792F423F";
+    private static final String OTHER = "2B4B6250645367566B5970404E635266556A586E3272357538782F413F442847";
+
+    private final JwtProperties props = props();
+    private final JwtKeyRing keyRing = new JwtKeyRing(props);
+    private final JWTService jwt = new JWTService(props, keyRing, new SimpleMeterRegistry());
+    private final FastAccessTokenVerifier verifier = new FastAccessTokenVerifier(jwt, keyRing, props, new SimpleMeterRegistry());
+
+    private static JwtProperties props() {
+        JwtProperties p = new JwtProperties();
+        p.setIssuer("my_taxi");
+        p.setAudience("my.taxi.app");
+        p.setSecretBase64(SECRET_1);
+        p.setAccessExpMin(10);
+        p.setRefreshExpDays(14);
+        p.setActiveKid("k2");
+        for (String[] k : new String[][]{{"k1", SECRET_1}, {"k2", SECRET_2}}) {
+            JwtProperties.KeyProps key = new JwtProperties.KeyProps();
+            key.setKid(k[0]);
+            key.setSecretBase64(k[1]);
+            p.getKeys().add(key);
+        }
+        return p;
+    }
+
+    @Test
+    void issuedTokensTakeTheFastPath() {
+        for (Set<String> roles : List.of(Set.<String>of(), Set.of("CLIENT"), Set.of("DRIVER", "ADMIN"),
+                Set.of("CLIENT", "DRIVER", "OPERATOR", "ADMIN", "MANAGER"))) {
+            String token = jwt.issueAccess(123_456_789_012L, "998901234567", roles, 42L);
+            assertNotNull(verifier.tryFast(token), "fast path rejected " + roles);
+            assertEquivalent(token);
+        }
+    }
+
+    @Test
+    void craftedTokensMatchJjwt() {
+        long now = System.currentTimeMillis() / 1000;
+        List<String> tokens = new ArrayList<>();
+
+        // built by jjwt, signed with each key the ring knows and one it does not
+        for (String[] key : new String[][]{{"k1", SECRET_1}, {"k2", SECRET_2}, {null, SECRET_1}, {"k3", OTHER}, {"k1", OTHER}}) {
+            tokens.add(jjwt(key[0], key[1], claims(now)));
+            tokens.add(jjwt(key[0], key[1], with(claims(now), "typ", "refresh")));
+        }
+        tokens.add(jjwt("k1", SECRET_1, with(claims(now), "iss", "someone_else")));
+        String expired = jjwt("k1", SECRET_1, with(claims(now), "exp", now - 600)); // far beyond the 2 s skew
+        tokens.add(expired);
+        tokens.add(jjwt("k1", SECRET_1, with(claims(now), "exp", now - 86_400)));
+        tokens.add(jjwt("k1", SECRET_1, with(claims(now), "roles", "DRIVER")));
+        tokens.add(jjwt("k1", SECRET_1, with(claims(now), "roles", List.of("DRIVER", "ROLE_ADMIN", "GOD"))));
+        tokens.add(jjwt("k1", SECRET_1, with(claims(now), "nbf", now + 600)));
+        tokens.add(jjwt("k1", SECRET_1, with(claims(now), "foo", "bar")));
+        tokens.add(jjwt("k1", SECRET_1, with(claims(now), "uid", "7")));
+        tokens.add(jjwt("k1", SECRET_1, with(claims(now), "uid", Long.MAX_VALUE)));
+        tokens.add(jjwt("k1", SECRET_1, without(claims(now), "uid")));
+        tokens.add(jjwt("k1", SECRET_1, without(claims(now), "ver")));
+        tokens.add(jjwt("k1", SECRET_1, without(claims(now), "exp")));
+        tokens.add(jjwt("k1", SECRET_1, without(claims(now), "sub")));
+        tokens.add(Jwts.builder().setClaims(claims(now)).compact()); // alg none
+
+        // hand-written JSON for shapes jjwt's builder cannot produce
+        String payload = "\"typ\":\"access\",\"uid\":7,\"roles\":[\"CLIENT\"],\"ver\":3,\"iss\":\"my_taxi\","
+                + "\"aud\":\"my.taxi.app\",\"sub\":\"998900000007\",\"jti\":\"j\",\"iat\":" + now + ",\"exp\":" + (now + 600);
+        String header = "{\"kid\":\"k1\",\"alg\":\"HS256\"}";
+        for (String[] hp : new String[][]{
+                {header, "{" + payload + "}"},
+                {header, " { " + payload + " } "},
+                {header, "{" + payload + ",\"uid\":8}"},
+                {header, "{" + payload + "} x"},
+                {header, "{" + payload + ",\"sub\":null}"},
+                {header, "{" + payload + ",\"roles\":null}"},
+                {header, "{" + payload + ",\"roles\":[\"CLIENT\",null]}"},
+                {header, "{" + payload + ",\"roles\":[\"CLIENT\",[\"ADMIN\"]]}"},
+                {header, "{" + payload + ",\"uid\":7.5}"},
+                {header, "{" + payload + ",\"uid\":1e3}"},
+                {header, "{" + payload + ",\"exp\":\"" + (now + 600) + "\"}"},
+                {header, "{" + payload + ",\"exp\":99999999999999999}"},
+                {header, "{" + payload + ",\"sub\":\"\\u0039\\u0039\\u0038\"}"},
+                {header, "[" + payload + "]"},
+                {"{\"kid\":\"k1\",\"alg\":\"HS256\",\"typ\":\"JWT\"}", "{" + payload + "}"},
+                {"{\"kid\":\"k1\",\"alg\":\"HS256\",\"zip\":\"DEF\"}", "{" + payload + "}"},
+                {"{\"kid\":null,\"alg\":\"HS256\"}", "{" + payload + "}"},
+                {"{\"kid\":\"\",\"alg\":\"HS256\"}", "{" + payload + "}"},
+                {"{\"kid\":\"k1\",\"alg\":\"hs256\"}", "{" + payload + "}"},
+                {"{\"kid\":\"k1\"}", "{" + payload + "}"},
+                {" " + header + " ", "{" + payload + "}"},
+                {header + "x", "{" + payload + "}"}}) {
+            tokens.add(manual(hp[0], hp[1], SECRET_1));
+        }
+        String valid = manual(header, "{" + payload + "}", SECRET_1);
+        tokens.add(valid + "=");
+        tokens.add(valid + ".");
+        tokens.add(valid.substring(0, valid.lastIndexOf('.') + 1));
+        tokens.add(valid.replace('-', '+').replace('_', '/'));
+        tokens.add(" " + valid);
+
+        for (String token : tokens) assertEquivalent(token);
+        assertNotNull(verifier.tryFast(valid));
+        assertEquals(2000L, keyRing.allowedClockSkewMillis());
+        assertEquals(ExpiredJwtException.class, outcome(() -> verifier.verify(expired)));
+    }
+
+    @Test
+    void mutatedTokensMatchJjwt() {
+        Random random = new Random(20261018);
+        String alphabet = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789-_.=+/ ";
+        String token = jwt.issueAccess(7L, "998900000007", Set.of("DRIVER"), 3L);
+        for (int i = 0; i < 3000; i++) {
+            char[] chars = token.toCharArray();
+            int mutations = 1 + random.nextInt(3);
+            for (int m = 0; m < mutations; m++) {
+                chars[random.nextInt(chars.length)] = alphabet.charAt(random.nextInt(alphabet.length()));
+            }
+            assertEquivalent(new String(chars));
+        }
+        // every possible last character of the signature, including ones differing only in unused bits
+        String prefix = token.substring(0, token.length() - 1);
+        for (char c : alphabet.toCharArray()) assertEquivalent(prefix + c);
+    }
+
+    private void assertEquivalent(String token) {
+        Object expected = outcome(() -> FastAccessTokenVerifier.fromClaims(jwt.verify(token)));
+        Object fast = outcome(() -> verifier.tryFast(token));
+        if (fast != null) assertEquals(expected, fast, () -> "fast path disagrees with jjwt on " + token);
+        assertEquals(expected, outcome(() -> verifier.verify(token)), () -> "verify disagrees with jjwt on " + token);
+    }
+
+    private static Object outcome(Supplier<AccessTokenClaims> call) {
+        try {
+            return call.get();
+        } catch (RuntimeException e) {
+            return e.getClass();
+        }
+    }
+
+    private static Map<String, Object> claims(long now) {
+        return Map.of("typ", "access", "uid", 7L, "roles", List.of("CLIENT"), "ver", 3L, "iss", "my_taxi",
+                "aud", "my.taxi.app", "sub", "998900000007", "jti", "jti-7", "iat", now, "exp", now + 600);
+    }
+
+    private static Map<String, Object> with(Map<String, Object> claims, String name, Object value) {
+        Map<String, Object> copy = new HashMap<>(claims);
+        copy.put(name, value);
+        return copy;
+    }
+
+    private static Map<String, Object> without(Map<String, Object> claims, String name) {
+        Map<String, Object> copy = new HashMap<>(claims);
+        copy.remove(name);
+        return copy;
+    }
+
+    private static String jjwt(String kid, String secret, Map<String, Object> claims) {
+        var builder = Jwts.builder().setClaims(claims);
+        if (kid != null) builder.setHeaderParam("kid", kid);
+        return builder.signWith(new SecretKeySpec(Decoders.BASE64.decode(secret), "HmacSHA256"), SignatureAlgorithm.HS256)
+                .compact();
+    }
+
+    private static String manual(String header, String payload, String secret) {
+        Base64.Encoder b64 = Base64.getUrlEncoder().withoutPadding();
+        String signingInput = b64.encodeToString(header.getBytes(StandardCharsets.UTF_8)) + "."
+                + b64.encodeToString(payload.getBytes(StandardCharsets.UTF_8));
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(Decoders.BASE64.decode(secret), "HmacSHA256"));
+            return signingInput + "." + b64.encodeToString(mac.doFinal(signingInput.getBytes(StandardCharsets.US_ASCII)));
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package my.taxi.security;
+
+import my.taxi.configuration.jpa.AuditorAwareImpl;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JwtAuthenticationTest {
+
+    @AfterEach
+    void clear() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void rolesClaimMapsToPrefixedAuthorities() {
+        int mask = RoleAuthorities.mask(List.of("DRIVER", "ROLE_ADMIN", "UNKNOWN"));
+        assertEquals(10, mask);
+        assertEquals(1, RoleAuthorities.mask("CLIENT"));
+        assertEquals(0, RoleAuthorities.mask(null));
+
+        var auth = new JwtAuthentication(7L, "998901234567", 3L, mask);
+        assertEquals(List.of("ROLE_DRIVER", "ROLE_ADMIN"),
+                auth.getAuthorities().stream().map(GrantedAuthority::getAuthority).toList());
+        assertSame(auth.getAuthorities(), new JwtAuthentication(8L, "998900000000", 0L, mask).getAuthorities());
+        assertEquals("998901234567", auth.getName());
+    }
+
+    @Test
+    void auditorIsTheTokenUser() {
+        AuditorAwareImpl auditor = new AuditorAwareImpl();
+        assertEquals(Optional.empty(), auditor.getCurrentAuditor());
+
+        SecurityContextHolder.getContext().setAuthentication(new JwtAuthentication(42L, "998901234567", 0L, 1));
+        assertEquals(Optional.of(42L), auditor.getCurrentAuditor());
+        assertEquals(42L, JwtAuthentication.current().orElseThrow().getUserId());
+    }
+}
@@ -0,0 +1,108 @@
+package my.taxi.security;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.JwtBuilder;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.UnsupportedJwtException;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import my.taxi.security.web.JwtProperties;
+import org.junit.jupiter.api.Test;
+
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JwtKeyRingTest {
+    private static final String SECRET_1 = "404E635266556A586E3272357538782F413F4428472B4B6250645367566B5970";
+    private static final String SECRET_2 = "5A7134743777217A25432A462D4A614E645267556B58703273357638792F423F";
+
+    private static JwtProperties props(String activeKid, String... kidSecretPairs) {
+        JwtProperties p = new JwtProperties();
+        p.setIssuer("my_taxi");
+        p.setAudience("my.taxi.app");
+        p.setAccessExpMin(10);
+        p.setRefreshExpDays(14);
+        p.setActiveKid(activeKid);
+        for (int i = 0; i < kidSecretPairs.length; i += 2) {
+            JwtProperties.KeyProps k = new JwtProperties.KeyProps();
+            k.setKid(kidSecretPairs[i]);
+            k.setSecretBase64(kidSecretPairs[i + 1]);
+            p.getKeys().add(k);
+        }
+        return p;
+    }
+
+    private static JWTService service(JwtProperties p) {
+        return new JWTService(p, new JwtKeyRing(p), new SimpleMeterRegistry());
+    }
+
+    @Test
+    void tokensIssuedBeforeRotationStillVerify() {
+        JWTService before = service(props("k1", "k1", SECRET_1));
+        String token = before.issueAccess(7L, "998900000000", Set.of("CLIENT"), 3L);
+
+        JWTService after = service(props("k2", "k1", SECRET_1, "k2", SECRET_2));
+        Claims claims = after.verify(token);
+        assertEquals(7, claims.get("uid", Number.class).longValue());
+
+        String fresh = after.issueRefresh(7L, "fam", "jti", 3L);
+        assertEquals("jti", after.verify(fresh).getId());
+        assertThrows(JwtException.class, () -> before.verify(fresh));
+    }
+
+    @Test
+    void retiredKeyIsRejected() {
+        String token = service(props("k1", "k1", SECRET_1)).issueAccess(1L, "p", Set.of(), 0L);
+        JWTService retired = service(props("k2", "k2", SECRET_2));
+        assertThrows(JwtException.class, () -> retired.verify(token));
+    }
+
+    @Test
+    void legacySecretVerifiesTokensWithoutKid() {
+        JwtProperties legacy = props(null);
+        legacy.setSecretBase64(SECRET_1);
+        JwtKeyRing ring = new JwtKeyRing(legacy);
+        assertEquals(JwtKeyRing.DEFAULT_KID, ring.activeKid());
+        assertSame(ring.activeKey(), ring.resolve(null));
+        assertEquals(List.of(), legacy.getKeys());
+
+        String token = signed(null, SECRET_1);
+        assertEquals("998900000000", ring.parser().parseClaimsJws(token).getBody().getSubject());
+
+        // after rotation the legacy secret still verifies tokens without a kid
+        JwtProperties rotated = props("k2", "k2", SECRET_2);
+        rotated.setSecretBase64(SECRET_1);
+        assertEquals(7, service(rotated).verify(token).get("uid", Number.class).longValue());
+        assertThrows(JwtException.class, () -> service(rotated).verify(signed(null, SECRET_2)));
+    }
+
+    @Test
+    void unknownKidIsRejected() {
+        JwtProperties p = props("k1", "k1", SECRET_1);
+        p.setSecretBase64(SECRET_1);
+        assertThrows(UnsupportedJwtException.class, () -> service(p).verify(signed("k9", SECRET_1)));
+    }
+
+    /**
+     * Access-shaped token signed with {@code secret}; no {@code kid} header when {@code kid} is null.
+     */
+    private static String signed(String kid, String secret) {
+        JwtBuilder builder = Jwts.builder()
+                .setClaims(Map.of("typ", "access", "uid", 7L, "ver", 0L))
+                .setIssuer("my_taxi")
+                .setAudience("my.taxi.app")
+                .setSubject("998900000000")
+                .setExpiration(new Date(System.currentTimeMillis() + 60_000L))
+                .signWith(Keys.hmacShaKeyFor(Decoders.BASE64.decode(secret)), SignatureAlgorithm.HS256);
+        if (kid != null) builder.setHeaderParam(JwsHeader.KEY_ID, kid);
+        return builder.compact();
+    }
+}
@@ -0,0 +1,85 @@
+package my.taxi.security;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import my.taxi.security.web.JwtProperties;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+class RefreshTokenTouchCoalescerTest {
+    private final JdbcTemplate jdbc = mock(JdbcTemplate.class);
+    private final RefreshTokenTouchCoalescer touches = coalescer(3);
+
+    private RefreshTokenTouchCoalescer coalescer(int maxPending) {
+        JwtProperties props = new JwtProperties();
+        props.getTouch().setMinInterval(Duration.ofMinutes(5));
+        props.getTouch().setMaxPending(maxPending);
+        return new RefreshTokenTouchCoalescer(jdbc, props, new SimpleMeterRegistry());
+    }
+
+    @Test
+    void mergedTouchKeepsTheLatestTimeAndTheLastKnownUserAgent() {
+        Instant stale = Instant.now().minus(Duration.ofHours(1));
+        touches.touch("a", stale, "old-ua", "new-ua");
+        Object[] first = flushed().get("a");
+        assertEquals("new-ua", first[1]);
+
+        touches.touch("a", stale, "old-ua", "new-ua");
+        touches.touch("a", stale, "old-ua", null);
+        Object[] merged = flushed().get("a");
+        assertEquals("new-ua", merged[1]);
+        assertFalse(((Timestamp) merged[0]).before((Timestamp) first[0]));
+    }
+
+    @Test
+    void touchWithinMinIntervalIsDropped() {
+        Instant recent = Instant.now().minus(Duration.ofMinutes(1));
+        touches.touch("a", recent, "ua", "ua");
+        touches.touch("b", recent, "ua", null);
+        touches.flush();
+        verifyNoInteractions(jdbc);
+
+        // a new User-Agent is written even within the interval
+        touches.touch("c", recent, "ua", "other-ua");
+        assertEquals("other-ua", flushed().get("c")[1]);
+    }
+
+    @Test
+    void touchesBeyondMaxPendingAreDroppedUntilTheNextFlush() {
+        Instant stale = Instant.now().minus(Duration.ofHours(1));
+        for (String jti : List.of("a", "b", "c", "d")) touches.touch(jti, stale, null, "ua");
+        // already pending jtis still merge
+        touches.touch("a", stale, null, "ua-2");
+
+        Map<String, Object[]> rows = flushed();
+        assertEquals(Set.of("a", "b", "c"), rows.keySet());
+        assertEquals("ua-2", rows.get("a")[1]);
+
+        touches.touch("d", stale, null, "ua");
+        assertEquals(Set.of("d"), flushed().keySet());
+    }
+
+    /**
+     * Flushes and returns the written rows by jti ({@code [last_used_at, user_agent, jti, last_used_at]}).
+     */
+    @SuppressWarnings("unchecked")
+    private Map<String, Object[]> flushed() {
+        clearInvocations(jdbc);
+        touches.flush();
+        ArgumentCaptor<List<Object[]>> batch = ArgumentCaptor.forClass(List.class);
+        verify(jdbc).batchUpdate(anyString(), batch.capture());
+        return batch.getValue().stream().collect(Collectors.toMap(r -> (String) r[2], r -> r));
+    }
+}
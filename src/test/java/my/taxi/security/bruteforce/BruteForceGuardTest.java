@@ -0,0 +1,111 @@
+package my.taxi.security.bruteforce;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import my.taxi.entities.auth.UserBruteForceGuard;
+import my.taxi.entities.auth.enums.BrutScope;
+import my.taxi.repository.UserBruteForceGuardRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class BruteForceGuardTest {
+    private UserBruteForceGuardRepository repository;
+    private BruteForceGuardWriter writer;
+    private BruteForceGuard guard;
+
+    @BeforeEach
+    void setUp() {
+        repository = mock(UserBruteForceGuardRepository.class);
+        when(repository.findByUserIdAndScope(anyLong(), any())).thenReturn(Optional.empty());
+        writer = mock(BruteForceGuardWriter.class);
+        guard = new BruteForceGuard(new BruteForceProperties(), repository, writer, new SimpleMeterRegistry());
+    }
+
+    @Test
+    void locksAtThresholdThenEscalates() {
+        for (int i = 0; i < 6; i++) {
+            assertEquals(Duration.ZERO, guard.registerFailure(1L, BrutScope.OTP_SMS, "ip", "ua"));
+        }
+        assertEquals(Duration.ofSeconds(900), guard.registerFailure(1L, BrutScope.OTP_SMS, "ip", "ua"));
+        assertFalse(guard.lockedFor(1L, BrutScope.OTP_SMS).isZero());
+        // other scope / user unaffected
+        assertTrue(guard.lockedFor(1L, BrutScope.LOGIN).isZero());
+        assertTrue(guard.lockedFor(2L, BrutScope.OTP_SMS).isZero());
+        // failures during the lock are not counted
+        assertEquals(Duration.ZERO, guard.registerFailure(1L, BrutScope.OTP_SMS, "ip", "ua"));
+        verify(writer, times(1)).locked(eq(1L), eq(BrutScope.OTP_SMS), any(), any(), eq("ip"), eq("ua"));
+    }
+
+    @Test
+    void successClearsEscalation() {
+        for (int i = 0; i < 7; i++) guard.registerFailure(1L, BrutScope.LOGIN, null, null);
+        guard.registerSuccess(1L, BrutScope.LOGIN);
+        assertTrue(guard.lockedFor(1L, BrutScope.LOGIN).isZero());
+        verify(writer).cleared(1L, BrutScope.LOGIN);
+
+        Duration lock = Duration.ZERO;
+        for (int i = 0; i < 7; i++) lock = guard.registerFailure(1L, BrutScope.LOGIN, null, null);
+        assertEquals(Duration.ofSeconds(900), lock);
+    }
+
+    @Test
+    void persistedLockIsEscalated() {
+        UserBruteForceGuard row = new UserBruteForceGuard();
+        row.setLockedUntil(Instant.now().minusSeconds(10));
+        when(repository.findByUserIdAndScope(5L, BrutScope.LOGIN)).thenReturn(Optional.of(row));
+
+        assertTrue(guard.lockedFor(5L, BrutScope.LOGIN).isZero());
+        Duration lock = Duration.ZERO;
+        for (int i = 0; i < 7; i++) lock = guard.registerFailure(5L, BrutScope.LOGIN, null, null);
+        assertEquals(Duration.ofSeconds(86400), lock);
+    }
+
+    @Test
+    void lockFromAnotherNodeIsSeenAfterSyncInterval() {
+        AtomicLong nanos = new AtomicLong();
+        guard = new BruteForceGuard(new BruteForceProperties(), repository, writer, new SimpleMeterRegistry(),
+                nanos::get, Runnable::run);
+        assertTrue(guard.lockedFor(3L, BrutScope.LOGIN).isZero());
+
+        UserBruteForceGuard row = new UserBruteForceGuard();
+        row.setLockedUntil(Instant.now().plusSeconds(900));
+        when(repository.findByUserIdAndScope(3L, BrutScope.LOGIN)).thenReturn(Optional.of(row));
+        assertTrue(guard.lockedFor(3L, BrutScope.LOGIN).isZero());
+
+        nanos.addAndGet(Duration.ofSeconds(11).toNanos());
+        guard.lockedFor(3L, BrutScope.LOGIN); // triggers the refresh
+        assertFalse(guard.lockedFor(3L, BrutScope.LOGIN).isZero());
+        assertEquals(Duration.ZERO, guard.registerFailure(3L, BrutScope.LOGIN, null, null));
+    }
+
+    @Test
+    void concurrentFailuresLockExactlyOnce() throws Exception {
+        int threads = 64;
+        AtomicInteger locks = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        try (ExecutorService pool = Executors.newFixedThreadPool(threads)) {
+            for (int t = 0; t < threads; t++) {
+                pool.submit(() -> {
+                    start.await();
+                    if (!guard.registerFailure(9L, BrutScope.OTP_SMS, null, null).isZero()) locks.incrementAndGet();
+                    return null;
+                });
+            }
+            start.countDown();
+        }
+        assertEquals(1, locks.get());
+        verify(writer, times(1)).locked(eq(9L), eq(BrutScope.OTP_SMS), any(), any(), any(), any());
+    }
+}
@@ -0,0 +1,110 @@
+package my.taxi.security.password;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import my.taxi.configuration.AppConfig;
+import my.taxi.entities.auth.enums.PasswordAlgorithm;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PasswordHasherTest {
+
+    private static PasswordProperties props(int threads, int queue, Duration timeout) {
+        PasswordProperties p = new PasswordProperties();
+        p.getHashing().setThreads(threads);
+        p.getHashing().setQueueCapacity(queue);
+        p.getHashing().setTimeout(timeout);
+        return p;
+    }
+
+    @Test
+    void saturatedPoolRejectsImmediately() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        PasswordEncoder slow = new BCryptPasswordEncoder(4) {
+            @Override
+            public boolean matches(CharSequence raw, String encoded) {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return true;
+            }
+        };
+        PasswordHasher hasher = new PasswordHasher(slow, props(1, 1, Duration.ofSeconds(10)), new SimpleMeterRegistry());
+        ExecutorService callers = Executors.newFixedThreadPool(2);
+        try {
+            Future<Boolean> running = callers.submit(() -> hasher.matches("a", "x"));
+            Future<Boolean> queued = callers.submit(() -> hasher.matches("b", "x"));
+            Thread.sleep(200); // one on the hashing thread, one in the queue
+
+            long start = System.nanoTime();
+            assertThrows(PasswordHasher.BusyException.class, () -> hasher.matches("c", "x"));
+            assertTrue(System.nanoTime() - start < TimeUnit.MILLISECONDS.toNanos(100));
+
+            release.countDown();
+            assertTrue(running.get(5, TimeUnit.SECONDS));
+            assertTrue(queued.get(5, TimeUnit.SECONDS));
+        } finally {
+            release.countDown();
+            callers.shutdownNow();
+            hasher.shutdown();
+        }
+    }
+
+    @Test
+    void slowHashTimesOut() {
+        PasswordEncoder stuck = new BCryptPasswordEncoder(4) {
+            @Override
+            public boolean matches(CharSequence raw, String encoded) {
+                try {
+                    Thread.sleep(5_000);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return true;
+            }
+        };
+        PasswordHasher hasher = new PasswordHasher(stuck, props(1, 0, Duration.ofMillis(100)), new SimpleMeterRegistry());
+        try {
+            assertThrows(PasswordHasher.BusyException.class, () -> hasher.matches("a", "x"));
+        } finally {
+            hasher.shutdown();
+        }
+    }
+
+    @Test
+    void oldHashesMatchAndAskForUpgrade() {
+        PasswordProperties p = props(1, 4, Duration.ofSeconds(10));
+        p.setAlgorithm(PasswordAlgorithm.ARGON2ID);
+        PasswordHasher hasher = new PasswordHasher(new AppConfig().passwordEncoder(p), p, new SimpleMeterRegistry());
+        try {
+            String legacy = new BCryptPasswordEncoder(4).encode("secret");   // no {id} prefix
+            assertTrue(hasher.matches("secret", legacy));
+            assertFalse(hasher.matches("wrong", legacy));
+            assertTrue(hasher.upgradeEncoding(legacy));
+            assertTrue(hasher.upgradeEncoding("{bcrypt}" + legacy));
+
+            String current = hasher.encode("secret");
+            assertTrue(current.startsWith("{argon2}"));
+            assertTrue(hasher.matches("secret", current));
+            assertFalse(hasher.upgradeEncoding(current));
+
+            p.getArgon2().setIterations(3);
+            PasswordHasher stronger = new PasswordHasher(new AppConfig().passwordEncoder(p), p, new SimpleMeterRegistry());
+            assertTrue(stronger.upgradeEncoding(current));
+            stronger.shutdown();
+        } finally {
+            hasher.shutdown();
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package my.taxi.security.ratelimit;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RateLimitFilterTest {
+    private static final String LOGIN = "/api/v1/auth/login";
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    /**
+     * One route on {@link #LOGIN}; at 0.01 tokens/s nothing refills while a test runs.
+     */
+    private RateLimitFilter filter(int capacity, boolean perDevice, boolean trustForwardedFor) {
+        RateLimitProperties.Route route = new RateLimitProperties.Route();
+        route.setName("login");
+        route.setPattern(LOGIN);
+        route.setCapacity(capacity);
+        route.setRefillPerSecond(0.01);
+        route.setPerDevice(perDevice);
+        RateLimitProperties props = new RateLimitProperties();
+        props.setRoutes(List.of(route));
+        props.setTrustForwardedFor(trustForwardedFor);
+        return new RateLimitFilter(props, registry);
+    }
+
+    @Test
+    void routesMatchBelowTheContextPath() throws Exception {
+        RateLimitFilter filter = filter(1, false, false);
+        MockHttpServletRequest login = request(LOGIN, "10.0.0.1");
+        login.setContextPath("/taxi");
+        login.setRequestURI("/taxi" + LOGIN);
+
+        assertEquals(200, run(filter, login).getStatus());
+        assertEquals(429, run(filter, login).getStatus());
+
+        MockHttpServletRequest other = request("/api/v1/auth/refresh-token", "10.0.0.1");
+        other.setContextPath("/taxi");
+        other.setRequestURI("/taxi/api/v1/auth/refresh-token");
+        for (int i = 0; i < 3; i++) assertEquals(200, run(filter, other).getStatus());
+    }
+
+    @Test
+    void deviceBucketLimitsOneDeviceAcrossAddresses() throws Exception {
+        RateLimitFilter filter = filter(2, true, false);
+        assertEquals(200, run(filter, device("10.0.0.1", "phone-1")).getStatus());
+        assertEquals(200, run(filter, device("10.0.0.2", "phone-1")).getStatus());
+        assertEquals(429, run(filter, device("10.0.0.3", "phone-1")).getStatus());
+        assertEquals(1.0, registry.counter("http.rate_limit.rejected", "route", "login", "key", "device").count());
+
+        // the per-IP bucket still applies to requests with a fresh device id
+        assertEquals(200, run(filter, device("10.0.0.4", "phone-2")).getStatus());
+        assertEquals(200, run(filter, device("10.0.0.4", "phone-3")).getStatus());
+        assertEquals(429, run(filter, device("10.0.0.4", "phone-4")).getStatus());
+        assertEquals(1.0, registry.counter("http.rate_limit.rejected", "route", "login", "key", "ip").count());
+    }
+
+    @Test
+    void rejectionIsA429WithRetryAfterAndJsonBody() throws Exception {
+        RateLimitFilter filter = filter(1, false, false);
+        run(filter, request(LOGIN, "10.0.0.1"));
+
+        MockFilterChain chain = new MockFilterChain();
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request(LOGIN, "10.0.0.1"), response, chain);
+
+        assertNull(chain.getRequest(), "rejected request must not reach the chain");
+        assertEquals(429, response.getStatus());
+        long retryAfter = Long.parseLong(response.getHeader(HttpHeaders.RETRY_AFTER));
+        assertTrue(retryAfter > 90 && retryAfter <= 100, "Retry-After " + retryAfter);
+        assertEquals(MediaType.APPLICATION_JSON_VALUE, response.getContentType());
+        assertEquals("{\"success\":false,\"error\":{\"code\":429,\"message\":\"Too many requests\"}}",
+                response.getContentAsString());
+    }
+
+    @Test
+    void forwardedForIsUsedOnlyWhenTrusted() throws Exception {
+        RateLimitFilter untrusted = filter(1, false, false);
+        assertEquals(200, run(untrusted, forwarded("203.0.113.1")).getStatus());
+        assertEquals(429, run(untrusted, forwarded("203.0.113.2")).getStatus());
+
+        RateLimitFilter trusted = filter(1, false, true);
+        assertEquals(200, run(trusted, forwarded("203.0.113.1, 10.0.0.9")).getStatus());
+        assertEquals(200, run(trusted, forwarded("203.0.113.2, 10.0.0.9")).getStatus());
+        assertEquals(429, run(trusted, forwarded(" 203.0.113.1 ")).getStatus());
+    }
+
+    private static MockHttpServletResponse run(RateLimitFilter filter, MockHttpServletRequest request) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, new MockFilterChain());
+        return response;
+    }
+
+    private static MockHttpServletRequest request(String path, String remoteAddr) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", path);
+        request.setRemoteAddr(remoteAddr);
+        return request;
+    }
+
+    private static MockHttpServletRequest device(String remoteAddr, String deviceId) {
+        MockHttpServletRequest request = request(LOGIN, remoteAddr);
+        request.addHeader("X-Device-Id", deviceId);
+        return request;
+    }
+
+    /**
+     * Request from the proxy at 10.0.0.100 carrying {@code X-Forwarded-For: xff}.
+     */
+    private static MockHttpServletRequest forwarded(String xff) {
+        MockHttpServletRequest request = request(LOGIN, "10.0.0.100");
+        request.addHeader("X-Forwarded-For", xff);
+        return request;
+    }
+}
@@ -0,0 +1,36 @@
+package my.taxi.security.ratelimit;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TokenBucketsTest {
+    private final TokenBuckets buckets = new TokenBuckets(1_000, Duration.ofMinutes(1));
+
+    @Test
+    void burstThenRefill() {
+        for (int i = 0; i < 5; i++) assertEquals(0, buckets.tryConsume("k", 5, 2.0, 1_000));
+        // empty: next token in 1 / 2 per second = 500 ms
+        assertEquals(500, buckets.tryConsume("k", 5, 2.0, 1_000));
+        assertEquals(250, buckets.tryConsume("k", 5, 2.0, 1_250));
+        assertEquals(0, buckets.tryConsume("k", 5, 2.0, 1_500));
+        assertTrue(buckets.tryConsume("k", 5, 2.0, 1_500) > 0);
+    }
+
+    @Test
+    void refillIsCappedAtCapacity() {
+        assertEquals(0, buckets.tryConsume("k", 3, 1.0, 0));
+        long later = 3_600_000;
+        for (int i = 0; i < 3; i++) assertEquals(0, buckets.tryConsume("k", 3, 1.0, later));
+        assertTrue(buckets.tryConsume("k", 3, 1.0, later) > 0);
+    }
+
+    @Test
+    void keysAreIndependent() {
+        assertEquals(0, buckets.tryConsume("a", 1, 0.1, 0));
+        assertTrue(buckets.tryConsume("a", 1, 0.1, 0) > 0);
+        assertEquals(0, buckets.tryConsume("b", 1, 0.1, 0));
+    }
+}
@@ -0,0 +1,117 @@
+package my.taxi.service.impl;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import jakarta.servlet.http.Cookie;
+import my.taxi.base.Response;
+import my.taxi.security.JwtAuthentication;
+import my.taxi.security.web.JwtProperties;
+import my.taxi.service.AuthService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * {@link AuthService#logoutAll} on an embedded Postgres: the user's tokenVersion is bumped, every
+ * device loses its refresh token, and a refresh cookie issued before is rejected.
+ */
+@SpringBootTest
+@DirtiesContext
+class LogoutAllTest {
+    private static final String PHONE = "998977000010";
+    private static final EmbeddedPostgres pg = start();
+
+    @Autowired
+    private AuthService authService;
+    @Autowired
+    private JdbcTemplate jdbc;
+    @Autowired
+    private JwtProperties props;
+
+    private static EmbeddedPostgres start() {
+        try {
+            return EmbeddedPostgres.builder().start();
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @DynamicPropertySource
+    static void datasource(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", () -> pg.getJdbcUrl("postgres", "postgres"));
+        registry.add("spring.datasource.username", () -> "postgres");
+        registry.add("spring.datasource.password", () -> "postgres");
+    }
+
+    @AfterEach
+    void clearContext() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void logoutAllEndsEverySessionOfTheUser() {
+        long userId = jdbc.queryForObject("""
+                INSERT INTO users (id, phone, active, blocked, roles_mask, token_version, created_at)
+                VALUES (nextval('users_seq'), ?, true, false, 1, 0, now())
+                RETURNING id
+                """, Long.class, PHONE);
+        String refreshCookie = login("phone");
+        login("tablet");
+        assertEquals(2, activeSessions(userId));
+
+        SecurityContextHolder.getContext().setAuthentication(new JwtAuthentication(userId, PHONE, 0, 1));
+        MockHttpServletResponse logout = new MockHttpServletResponse();
+        assertTrue(authService.logoutAll(logout).isSuccess());
+        assertTrue(logout.getHeader(HttpHeaders.SET_COOKIE).contains("Max-Age=0"));
+
+        assertEquals(1L, jdbc.queryForObject("SELECT token_version FROM users WHERE id = ?", Long.class, userId));
+        assertEquals(0, activeSessions(userId));
+
+        MockHttpServletRequest refresh = request("phone");
+        refresh.setCookies(new Cookie(props.getCookie().getRefreshName(), refreshCookie));
+        Response<String> refreshed = authService.handleRefreshToken(refresh, new MockHttpServletResponse());
+        assertFalse(refreshed.isSuccess());
+        assertEquals(401, refreshed.getError().getCode());
+    }
+
+    @Test
+    void logoutAllNeedsAnAuthenticatedUser() {
+        Response<String> result = authService.logoutAll(new MockHttpServletResponse());
+        assertEquals(401, result.getError().getCode());
+    }
+
+    /**
+     * Logs in from {@code device} and returns the refresh token set in the cookie.
+     */
+    private String login(String device) {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        assertTrue(authService.loginByPhone(PHONE, request(device), response).isSuccess());
+        String setCookie = response.getHeader(HttpHeaders.SET_COOKIE);
+        String prefix = props.getCookie().getRefreshName() + "=";
+        return setCookie.substring(prefix.length(), setCookie.indexOf(';'));
+    }
+
+    private static MockHttpServletRequest request(String device) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/v1/api/auth/login");
+        request.addHeader("X-Device-Id", device);
+        request.addHeader("User-Agent", "LogoutAllTest");
+        return request;
+    }
+
+    private long activeSessions(long userId) {
+        return jdbc.queryForObject("SELECT count(*) FROM refresh_tokens WHERE user_id = ? AND status = 'ACTIVE'",
+                Long.class, userId);
+    }
+}
@@ -0,0 +1,157 @@
+package my.taxi.service.impl;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import my.taxi.base.Request;
+import my.taxi.base.Response;
+import my.taxi.entities.auth.OtpCode;
+import my.taxi.entities.auth.enums.OtpStatus;
+import my.taxi.payload.request.OtpSendRequest;
+import my.taxi.payload.request.OtpVerifyRequest;
+import my.taxi.repository.OtpCodeRepository;
+import my.taxi.repository.UserRepository;
+import my.taxi.security.AuthMetrics;
+import my.taxi.security.bruteforce.BruteForceGuard;
+import my.taxi.security.otp.OtpProperties;
+import my.taxi.security.otp.SmsSender;
+import my.taxi.service.AuthService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeFalse;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Two {@link OtpServiceImpl} instances (two nodes) over one in-memory {@code otp_codes} table: what
+ * one node changes in the row must hold on the other, whatever that node still has cached.
+ */
+class OtpServiceImplTest {
+    private static final String PHONE = "998900000001";
+
+    private final Map<Long, OtpCode> rows = new ConcurrentHashMap<>();
+    private final AtomicReference<String> lastSms = new AtomicReference<>();
+    private final AtomicInteger smsSent = new AtomicInteger();
+    private AuthService authService;
+    private OtpServiceImpl nodeA;
+    private OtpServiceImpl nodeB;
+
+    @BeforeEach
+    void setUp() {
+        OtpCodeRepository repository = repository();
+        UserRepository users = mock(UserRepository.class);
+        when(users.findIdByPhone(anyString())).thenReturn(Optional.empty());
+        authService = mock(AuthService.class);
+        when(authService.loginByPhone(anyString(), any(), any())).thenReturn(Response.ok("access"));
+        BruteForceGuard guard = mock(BruteForceGuard.class);
+
+        OtpProperties props = new OtpProperties();
+        props.setResendCooldown(Duration.ZERO);
+        props.setMaxSends(3);
+        SmsSender sms = (phone, text) -> {
+            smsSent.incrementAndGet();
+            lastSms.set(text.replaceAll("\\D", ""));
+        };
+        nodeA = new OtpServiceImpl(repository, users, authService, guard, sms, props, new AuthMetrics(new SimpleMeterRegistry()));
+        nodeB = new OtpServiceImpl(repository, users, authService, guard, sms, props, new AuthMetrics(new SimpleMeterRegistry()));
+    }
+
+    @Test
+    void codeVerifiedOnOneNodeIsRejectedOnTheOther() {
+        assertTrue(send(nodeA).isSuccess());
+        String code = lastSms.get();
+
+        assertTrue(verifyOn(nodeB, code).isSuccess());
+        assertFalse(verifyOn(nodeA, code).isSuccess());
+        verify(authService, times(1)).loginByPhone(eq(PHONE), any(), any());
+    }
+
+    @Test
+    void codeReissuedOnOneNodeSupersedesTheOtherNodesCode() {
+        assertTrue(send(nodeA).isSuccess());
+        String old = lastSms.get();
+        assertTrue(send(nodeB).isSuccess());
+        String current = lastSms.get();
+        assumeFalse(old.equals(current), "the same code was drawn twice");
+
+        assertFalse(verifyOn(nodeA, old).isSuccess());
+        assertTrue(verifyOn(nodeA, current).isSuccess());
+    }
+
+    @Test
+    void sendCapHoldsAcrossNodes() {
+        for (int i = 0; i < 10; i++) send(i % 2 == 0 ? nodeA : nodeB);
+
+        assertEquals(3, smsSent.get());
+        assertEquals(2, rows.values().iterator().next().getResendCount());
+        assertEquals(OtpStatus.BLOCKED, rows.values().iterator().next().getStatus());
+        assertEquals(429, send(nodeA).getError().getCode());
+    }
+
+    private Response<?> send(OtpServiceImpl node) {
+        OtpSendRequest params = new OtpSendRequest();
+        params.setPhone(PHONE);
+        return node.send(new Request<>(null, params), new MockHttpServletRequest(), new MockHttpServletResponse());
+    }
+
+    private Response<?> verifyOn(OtpServiceImpl node, String code) {
+        OtpVerifyRequest params = new OtpVerifyRequest();
+        params.setPhone(PHONE);
+        params.setCode(code);
+        return node.verify(new Request<>(null, params), new MockHttpServletRequest(), new MockHttpServletResponse());
+    }
+
+    /**
+     * The queries {@link OtpServiceImpl} runs, over {@link #rows}.
+     */
+    private OtpCodeRepository repository() {
+        OtpCodeRepository repository = mock(OtpCodeRepository.class);
+        AtomicLong ids = new AtomicLong();
+        when(repository.save(any(OtpCode.class))).thenAnswer(inv -> {
+            OtpCode row = inv.getArgument(0);
+            row.setId(ids.incrementAndGet());
+            rows.put(row.getId(), row);
+            return row;
+        });
+        when(repository.findFirstByPhoneAndCreatedAtAfterOrderByCreatedAtDesc(anyString(), any())).thenAnswer(inv -> {
+            Instant after = inv.getArgument(1);
+            return rows.values().stream()
+                    .filter(r -> r.getPhone().equals(inv.getArgument(0)) && r.getCreatedAt().isAfter(after))
+                    .max(Comparator.comparing(OtpCode::getCreatedAt));
+        });
+        when(repository.findCurrentById(anyLong())).thenAnswer(inv -> Optional.ofNullable(rows.get(inv.<Long>getArgument(0))));
+        when(repository.updateStatus(anyLong(), any(), anyString(), any(), anyShort())).thenAnswer(inv -> {
+            OtpCode row = rows.get(inv.<Long>getArgument(0));
+            if (row.getStatus() != inv.getArgument(1) || !Objects.equals(row.getCodeHash(), inv.getArgument(2))) return 0;
+            row.setStatus(inv.getArgument(3));
+            row.setAttempts(inv.getArgument(4));
+            return 1;
+        });
+        when(repository.reissue(anyLong(), anyShort(), anyString(), anyString(), any(), any())).thenAnswer(inv -> {
+            OtpCode row = rows.get(inv.<Long>getArgument(0));
+            if (row.getResendCount() != inv.<Short>getArgument(1) || row.getStatus() == OtpStatus.BLOCKED) return 0;
+            row.setCodeHash(inv.getArgument(2));
+            row.setSalt(inv.getArgument(3));
+            row.setExpiresAt(inv.getArgument(4));
+            row.setLastSentAt(inv.getArgument(5));
+            row.setResendCount((short) (row.getResendCount() + 1));
+            row.setAttempts((short) 0);
+            row.setStatus(OtpStatus.PENDING);
+            return 1;
+        });
+        return repository;
+    }
+}
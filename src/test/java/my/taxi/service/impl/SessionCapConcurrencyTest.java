@@ -0,0 +1,165 @@
+package my.taxi.service.impl;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import my.taxi.base.Response;
+import my.taxi.security.DeviceFingerPrService;
+import my.taxi.security.web.JwtProperties;
+import my.taxi.service.AuthService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntFunction;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Fires many simultaneous logins of one user at {@link AuthService#loginByPhone} on an embedded
+ * Postgres and checks, while they run and afterwards, that the user never has more ACTIVE refresh
+ * tokens than {@code security.jwt.max-session}.
+ */
+@SpringBootTest
+@DirtiesContext
+class SessionCapConcurrencyTest {
+    private static final int PARALLELISM = 48;
+    private static final int ROUNDS = 5;
+
+    private static final EmbeddedPostgres pg = start();
+
+    @Autowired
+    private AuthService authService;
+    @Autowired
+    private JdbcTemplate jdbc;
+    @Autowired
+    private JwtProperties props;
+    @Autowired
+    private DeviceFingerPrService fingerprints;
+
+    private static EmbeddedPostgres start() {
+        try {
+            return EmbeddedPostgres.builder().start();
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @DynamicPropertySource
+    static void datasource(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", () -> pg.getJdbcUrl("postgres", "postgres") + "&reWriteBatchedInserts=true");
+        registry.add("spring.datasource.username", () -> "postgres");
+        registry.add("spring.datasource.password", () -> "postgres");
+        registry.add("spring.datasource.hikari.maximum-pool-size", () -> "16");
+    }
+
+    @Test
+    void loginsFromManyDevicesNeverExceedTheCap() throws Exception {
+        long userId = createUser("998977000001");
+        int maxSession = props.getMaxSession();
+
+        for (int round = 0; round < ROUNDS; round++) {
+            int r = round;
+            long peak = loginConcurrently("998977000001", i -> "device-" + r + "-" + i, userId);
+            assertTrue(peak <= maxSession, "round " + round + ": " + peak + " active sessions, cap is " + maxSession);
+            assertEquals(maxSession, activeSessions(userId));
+        }
+    }
+
+    @Test
+    void loginsFromOneDeviceShareOneSession() throws Exception {
+        long userId = createUser("998977000002");
+
+        loginConcurrently("998977000002", i -> "same-device", userId);
+        assertEquals(1, activeSessions(userId));
+    }
+
+    @Test
+    void expiredSessionsAreRevokedInsteadOfCounted() throws Exception {
+        long userId = createUser("998977000003");
+        MockHttpServletRequest device = loginRequest("expired-device");
+        String fp = fingerprints.userScopedFingerprint(device, userId);
+        for (int i = 0; i < props.getMaxSession(); i++) {
+            jdbc.update("""
+                    INSERT INTO refresh_tokens (jti, user_id, family_id, status, device_fp, expires_at, created_at)
+                    VALUES (?, ?, ?, 'ACTIVE', ?, now() - interval '1 day', now() - interval '31 days')
+                    """, UUID.randomUUID().toString(), userId, UUID.randomUUID().toString(), i == 0 ? fp : "other-" + i);
+        }
+
+        loginConcurrently("998977000003", i -> "expired-device", userId);
+        assertEquals(1, activeSessions(userId));
+        assertEquals(1, jdbc.queryForObject("""
+                SELECT count(*) FROM refresh_tokens
+                WHERE user_id = ? AND device_fp = ? AND status = 'ACTIVE' AND expires_at > now()
+                """, Long.class, userId, fp));
+    }
+
+    /**
+     * Runs {@link #PARALLELISM} logins released at the same instant, all of which must succeed.
+     *
+     * @return the highest ACTIVE count observed while they ran
+     */
+    private long loginConcurrently(String phone, IntFunction<String> deviceId, long userId) throws Exception {
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicBoolean running = new AtomicBoolean(true);
+        AtomicLong peak = new AtomicLong();
+        try (ExecutorService pool = Executors.newFixedThreadPool(PARALLELISM + 1)) {
+            Future<?> monitor = pool.submit(() -> {
+                while (running.get()) peak.accumulateAndGet(activeSessions(userId), Math::max);
+            });
+            List<Future<Response<String>>> logins = new ArrayList<>();
+            for (int i = 0; i < PARALLELISM; i++) {
+                String device = deviceId.apply(i);
+                logins.add(pool.submit(() -> {
+                    start.await();
+                    return authService.loginByPhone(phone, loginRequest(device), new MockHttpServletResponse());
+                }));
+            }
+            start.countDown();
+            try {
+                for (Future<Response<String>> login : logins) {
+                    assertTrue(login.get().isSuccess(), () -> "login failed: " + login.resultNow().getError());
+                }
+            } finally {
+                running.set(false);
+            }
+            monitor.get();
+        }
+        return Math.max(peak.get(), activeSessions(userId));
+    }
+
+    private static MockHttpServletRequest loginRequest(String device) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/v1/api/auth/login");
+        request.addHeader("X-Device-Id", device);
+        request.addHeader("User-Agent", "SessionCapConcurrencyTest");
+        return request;
+    }
+
+    private long createUser(String phone) {
+        return jdbc.queryForObject("""
+                INSERT INTO users (id, phone, active, blocked, roles_mask, token_version, created_at)
+                VALUES (nextval('users_seq'), ?, true, false, 1, 0, now())
+                RETURNING id
+                """, Long.class, phone);
+    }
+
+    private long activeSessions(long userId) {
+        return jdbc.queryForObject("SELECT count(*) FROM refresh_tokens WHERE user_id = ? AND status = 'ACTIVE'",
+                Long.class, userId);
+    }
+}
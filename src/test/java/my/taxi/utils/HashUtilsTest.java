@@ -0,0 +1,63 @@
+package my.taxi.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class HashUtilsTest {
+    // FIPS 180-2 / RFC 4231 test vectors
+    private static final String SHA256_ABC = "ba7816bf8f01cfea414140de5dae2223b00361a396177a9cb410ff61f20015ad";
+    private static final String HMAC_JEFE = "5bdcc146bf60754e6a042426089575c75a003f089d2739839dec58b964ec3843";
+    private static final String JEFE_DATA = "what do ya want for nothing?";
+
+    @Test
+    void sha256MatchesReferenceForEveryOverload() {
+        byte[] abc = "abc".getBytes(StandardCharsets.UTF_8);
+        assertEquals(SHA256_ABC, HashUtils.sha256Hex("abc"));
+        assertEquals(SHA256_ABC, HashUtils.sha256Hex(abc));
+        assertEquals(SHA256_ABC, HashUtils.sha256Hex(ByteBuffer.wrap(abc)));
+        assertEquals(SHA256_ABC, HashUtils.sha256Hex(ByteBuffer.allocateDirect(3).put(abc).flip()));
+    }
+
+    @Test
+    void hmacMatchesReferenceForEveryOverload() {
+        byte[] data = JEFE_DATA.getBytes(StandardCharsets.UTF_8);
+        assertEquals(HMAC_JEFE, HashUtils.hmacSha256Hex(JEFE_DATA, "Jefe"));
+        assertEquals(HMAC_JEFE, HashUtils.hmacSha256Hex(data, "Jefe"));
+        assertEquals(HMAC_JEFE, HashUtils.hmacSha256Hex(ByteBuffer.wrap(data), "Jefe"));
+        byte[] key = "Jefe".getBytes(StandardCharsets.UTF_8);
+        assertEquals(HMAC_JEFE, HashUtils.hmacSha256Hex(JEFE_DATA, key));
+        key[0] = 'X';
+        assertEquals(HashUtils.hmacSha256Hex(JEFE_DATA, "Xefe"), HashUtils.hmacSha256Hex(JEFE_DATA, key));
+
+        HashUtils.HmacSha256 keyed = HashUtils.hmacSha256("Jefe");
+        assertEquals(HMAC_JEFE, keyed.hex(JEFE_DATA));
+        assertEquals(HMAC_JEFE, keyed.hex(ByteBuffer.wrap(data)));
+        byte[] raw = new byte[40];
+        keyed.mac(data, 0, data.length, raw, 8);
+        assertEquals(HMAC_JEFE, HashUtils.toHex(raw, 8, 32));
+    }
+
+    @Test
+    void pooledInstancesDoNotLeakStateBetweenKeysOrThreads() throws Exception {
+        String expectedOther = HashUtils.hmacSha256Hex(JEFE_DATA, "other");
+        try (ExecutorService pool = Executors.newFixedThreadPool(8)) {
+            List<Callable<Void>> jobs = IntStream.range(0, 2_000).<Callable<Void>>mapToObj(i -> () -> {
+                boolean jefe = i % 2 == 0;
+                assertEquals(jefe ? HMAC_JEFE : expectedOther, HashUtils.hmacSha256Hex(JEFE_DATA, jefe ? "Jefe" : "other"));
+                assertEquals(SHA256_ABC, HashUtils.sha256Hex("abc"));
+                return null;
+            }).toList();
+            for (Future<Void> f : pool.invokeAll(jobs)) f.get();
+        }
+    }
+}